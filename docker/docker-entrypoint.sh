@@ -6,6 +6,12 @@ set -euo pipefail
 : ${CORE_PEER_TLS_ENABLED:="false"}
 : ${DEBUG:="false"}
 
+# Transaction executor of the chaincode launcher; settings left empty keep the shim's defaults
+export TP_CORE_POOL_SIZE="${TP_CORE_POOL_SIZE:-}"
+export TP_MAX_POOL_SIZE="${TP_MAX_POOL_SIZE:-}"
+export TP_QUEUE_SIZE="${TP_QUEUE_SIZE:-}"
+export TP_KEEP_ALIVE_MS="${TP_KEEP_ALIVE_MS:-}"
+
 if [ "${DEBUG,,}" = "true" ]; then
    exec java -agentlib:jdwp=transport=dt_socket,server=y,suspend=n,address=0.0.0.0:8000 -jar /chaincode.jar
 elif [ "${CORE_PEER_TLS_ENABLED,,}" = "true" ]; then
@@ -0,0 +1,33 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * Representative records used by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static DataRequest dataRequest(final int i) {
+        return new DataRequest(String.format("data_request-%08d", i), "Audience data for campaign " + (i % 100),
+                "2024-05-01T10:15:30Z", "2024-05-02T08:00:00Z", "org1-admin", "org" + (i % 10),
+                "age,gender,city,income", "pending,pending,approved,pending", "org2-admin,org3-admin",
+                "campaign-" + (i % 100), "Spring launch " + (i % 100), "0.0125", Boolean.FALSE);
+    }
+
+    static CampaignTransaction campaignTransaction(final int i) {
+        return new CampaignTransaction(String.format("cost_transfer-%08d", i), String.format("data_request-%08d", i),
+                "campaign-" + (i % 100), 0.0125, 0.004, 125000L + i, i % 2 == 0 ? "sms" : "email", 1562.5, 1062.5,
+                500.0, "70", "org2:40,org3:30");
+    }
+
+    static UserNotification userNotification(final int i) {
+        return new UserNotification(String.format("notification_n-%08d", i), String.format("request-%08d", i),
+                "campaign-" + (i % 100), "3", "age,gender,city", "org" + (i % 10), "2024-05-01T10:15:30Z",
+                "Your data request is waiting for approval", i % 3 == 0 ? "read" : "unread");
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.contract.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transactions of {@link CostTransactionRequest} against ledgers of increasing size. Every cost transfer belongs to
+ * one of 100 campaigns, whose summaries are updated along with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CostTransactionRequestBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int ledgerSize;
+
+    private final CostTransactionRequest contract = new CostTransactionRequest();
+    private LedgerFixture ledger;
+    private int nextId;
+
+    @Setup
+    public void setUp() {
+        ledger = new LedgerFixture();
+        ledger.populate(contract, ledgerSize, this::create);
+        nextId = ledgerSize;
+    }
+
+    /**
+     * Creates a record and deletes it again in a second transaction, which keeps the ledger at its nominal size.
+     */
+    @Benchmark
+    public Object createThenDelete() {
+        int i = nextId++;
+        ledger.transaction(contract, ctx -> create(ctx, i));
+        return ledger.transaction(contract, ctx -> {
+            contract.DeleteCostTransfer(ctx, transferId(i));
+            return null;
+        });
+    }
+
+    @Benchmark
+    public CampaignTransaction update() {
+        int i = LedgerFixture.pick(ledgerSize);
+        CampaignTransaction c = BenchmarkData.campaignTransaction(i);
+        return ledger.transaction(contract, ctx -> contract.UpdateCampaignTransaction(ctx, transferId(i),
+                c.getDataRequestId(), c.getCampaignId(), c.getCostPerImpression(), c.getChannelCostPerImpression(),
+                c.getIntersectionDataCount() + 1, c.getChannel(), c.getTotalCost() + 1, c.getDataCost(),
+                c.getPlatformShare(), c.getDataProviderShare(), c.getDataProviderShareList()));
+    }
+
+    @Benchmark
+    public CampaignTransaction read() {
+        String transferId = transferId(LedgerFixture.pick(ledgerSize));
+        return ledger.transaction(contract, ctx -> contract.FindByTransferId(ctx, transferId));
+    }
+
+    @Benchmark
+    public boolean exists() {
+        String transferId = transferId(LedgerFixture.pick(ledgerSize));
+        return ledger.transaction(contract, ctx -> contract.CostTransferExists(ctx, transferId));
+    }
+
+    @Benchmark
+    public CampaignCostSummary getCampaignCostSummary() {
+        String campaignId = "campaign-" + LedgerFixture.pick(100);
+        return ledger.transaction(contract, ctx -> contract.GetCampaignCostSummary(ctx, campaignId));
+    }
+
+    /**
+     * Reads a page of 100 records starting at a random record.
+     */
+    @Benchmark
+    public String getAllCostTransfersPaged() {
+        String bookmark = CostTransactionRequest.addCostPrefixIfNotPresent(transferId(LedgerFixture.pick(ledgerSize)));
+        return ledger.transaction(contract, ctx -> contract.GetAllCostTransfersPaged(ctx, 100, bookmark, 0));
+    }
+
+    private CampaignTransaction create(final Context ctx, final int i) {
+        CampaignTransaction c = BenchmarkData.campaignTransaction(i);
+        return contract.CreateCampaignTransaction(ctx, transferId(i), c.getDataRequestId(), c.getCampaignId(),
+                c.getCostPerImpression(), c.getChannelCostPerImpression(), c.getIntersectionDataCount(),
+                c.getChannel(), c.getTotalCost(), c.getDataCost(), c.getPlatformShare(), c.getDataProviderShare(),
+                c.getDataProviderShareList());
+    }
+
+    private static String transferId(final int i) {
+        return String.format("transfer-%08d", i);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.contract.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transactions of {@link DataTransferRequest} against ledgers of increasing size. Every record belongs to one of 100
+ * campaigns, so an unpaged campaign lookup returns one percent of the ledger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DataTransferRequestBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int ledgerSize;
+
+    private final DataTransferRequest contract = new DataTransferRequest();
+    private LedgerFixture ledger;
+    private int nextId;
+
+    @Setup
+    public void setUp() {
+        ledger = new LedgerFixture();
+        ledger.populate(contract, ledgerSize, (ctx, i) -> create(ctx, BenchmarkData.dataRequest(i)));
+        nextId = ledgerSize;
+    }
+
+    /**
+     * Creates a record and deletes it again in a second transaction, which keeps the ledger at its nominal size.
+     */
+    @Benchmark
+    public Object createThenDelete() {
+        DataRequest dataRequest = BenchmarkData.dataRequest(nextId++);
+        ledger.transaction(contract, ctx -> create(ctx, dataRequest));
+        return ledger.transaction(contract, ctx -> {
+            contract.DeleteDataRequest(ctx, dataRequest.getRequestId());
+            return null;
+        });
+    }
+
+    @Benchmark
+    public DataRequest update() {
+        DataRequest d = BenchmarkData.dataRequest(LedgerFixture.pick(ledgerSize));
+        return ledger.transaction(contract, ctx -> contract.UpdateDataRequest(ctx, d.getRequestId(),
+                d.getDescription(), d.getCreatedOn(), "2024-06-01T00:00:00Z", d.getCreatedBy(), d.getOwner(),
+                d.getAttributeCodeList(), "approved,pending,approved,pending", d.getApprovers(), d.getCampaignId(),
+                d.getCampaignName(), d.getCostPerImpression(), d.getDeleted()));
+    }
+
+    /**
+     * FindByRequestId always adds the {@code data_} prefix, so it is given the id without it.
+     */
+    @Benchmark
+    public DataRequest read() {
+        String requestId = String.format("request-%08d", LedgerFixture.pick(ledgerSize));
+        return ledger.transaction(contract, ctx -> contract.FindByRequestId(ctx, requestId));
+    }
+
+    @Benchmark
+    public boolean exists() {
+        String requestId = BenchmarkData.dataRequest(LedgerFixture.pick(ledgerSize)).getRequestId();
+        return ledger.transaction(contract, ctx -> contract.DataRequestExists(ctx, requestId));
+    }
+
+    @Benchmark
+    public String findByCampaignId() {
+        String campaignId = "campaign-" + LedgerFixture.pick(100);
+        return ledger.transaction(contract, ctx -> contract.FindByCampaignId(ctx, campaignId));
+    }
+
+    @Benchmark
+    public String findByCampaignIdPaged() {
+        String campaignId = "campaign-" + LedgerFixture.pick(100);
+        return ledger.transaction(contract, ctx -> contract.FindByCampaignIdPaged(ctx, campaignId, 100, "", 0));
+    }
+
+    /**
+     * Reads a page of 100 records starting at a random record.
+     */
+    @Benchmark
+    public String getAllDataRequestsPaged() {
+        String bookmark = BenchmarkData.dataRequest(LedgerFixture.pick(ledgerSize)).getRequestId();
+        return ledger.transaction(contract, ctx -> contract.GetAllDataRequestsPaged(ctx, 100, bookmark, 0));
+    }
+
+    private DataRequest create(final Context ctx, final DataRequest d) {
+        return contract.CreateDataRequest(ctx, d.getRequestId(), d.getDescription(), d.getCreatedOn(),
+                d.getUpdatedOn(), d.getCreatedBy(), d.getOwner(), d.getAttributeCodeList(), d.getAttributeStatusList(),
+                d.getApprovers(), d.getCampaignId(), d.getCampaignName(), d.getCostPerImpression(), d.getDeleted());
+    }
+}
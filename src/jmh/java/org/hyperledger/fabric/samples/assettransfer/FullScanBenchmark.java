@@ -0,0 +1,80 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The unpaged GetAll queries, which return every record of a type in one response. Their cost and response size
+ * grow linearly with the ledger, so they stop at 100k records; pass {@code -p ledgerSize=1000000} to go further.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FullScanBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int ledgerSize;
+
+    private final DataTransferRequest dataRequests = new DataTransferRequest();
+    private final CostTransactionRequest costTransfers = new CostTransactionRequest();
+    private final UserNotificationHandler notifications = new UserNotificationHandler();
+    private LedgerFixture ledger;
+
+    @Setup
+    public void setUp() {
+        ledger = new LedgerFixture();
+        ledger.populate(dataRequests, ledgerSize, (ctx, i) -> {
+            DataRequest d = BenchmarkData.dataRequest(i);
+            dataRequests.CreateDataRequest(ctx, d.getRequestId(), d.getDescription(), d.getCreatedOn(),
+                    d.getUpdatedOn(), d.getCreatedBy(), d.getOwner(), d.getAttributeCodeList(),
+                    d.getAttributeStatusList(), d.getApprovers(), d.getCampaignId(), d.getCampaignName(),
+                    d.getCostPerImpression(), d.getDeleted());
+        });
+        ledger.populate(costTransfers, ledgerSize, (ctx, i) -> {
+            CampaignTransaction c = BenchmarkData.campaignTransaction(i);
+            costTransfers.CreateCampaignTransaction(ctx, String.format("transfer-%08d", i), c.getDataRequestId(),
+                    c.getCampaignId(), c.getCostPerImpression(), c.getChannelCostPerImpression(),
+                    c.getIntersectionDataCount(), c.getChannel(), c.getTotalCost(), c.getDataCost(),
+                    c.getPlatformShare(), c.getDataProviderShare(), c.getDataProviderShareList());
+        });
+        ledger.populate(notifications, ledgerSize, (ctx, i) -> {
+            UserNotification n = BenchmarkData.userNotification(i);
+            notifications.CreateUserNotification(ctx, String.format("n-%08d", i), n.getRequestId(),
+                    n.getCampaignId(), n.getCount(), n.getAttributeList(), n.getOwner(), n.getCreatedOn(),
+                    n.getMessage(), n.getStatus());
+        });
+    }
+
+    @Benchmark
+    public String getAllDataRequests() {
+        return ledger.transaction(dataRequests, dataRequests::GetAllDataRequests);
+    }
+
+    @Benchmark
+    public String getAllCostTransfers() {
+        return ledger.transaction(costTransfers, costTransfers::GetAllCostTransfers);
+    }
+
+    @Benchmark
+    public String getAllUserNotifications() {
+        return ledger.transaction(notifications, notifications::GetAllUserNotifications);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.owlike.genson.Genson;
+
+/**
+ * Compares the JSON and compact ledger encodings of each {@code @DataType}, with reflective Genson binding as the
+ * baseline. The {@link #encodedSize} benchmark reports the size of both encodings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerEncodingBenchmark {
+
+    @Param({"DataRequest", "CampaignTransaction", "UserNotification"})
+    public String type;
+
+    private final Genson genson = new Genson();
+    private LedgerCodec<Object> codec;
+    private Class<?> valueClass;
+    private Object value;
+    private byte[] json;
+    private byte[] compact;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        switch (type) {
+            case "DataRequest":
+                codec = (LedgerCodec<Object>) (LedgerCodec<?>) DataRequestCodec.INSTANCE;
+                valueClass = DataRequest.class;
+                value = BenchmarkData.dataRequest(1);
+                break;
+            case "CampaignTransaction":
+                codec = (LedgerCodec<Object>) (LedgerCodec<?>) CampaignTransactionCodec.INSTANCE;
+                valueClass = CampaignTransaction.class;
+                value = BenchmarkData.campaignTransaction(1);
+                break;
+            default:
+                codec = (LedgerCodec<Object>) (LedgerCodec<?>) UserNotificationCodec.INSTANCE;
+                valueClass = UserNotification.class;
+                value = BenchmarkData.userNotification(1);
+                break;
+        }
+
+        json = codec.encodeJson(value);
+        compact = codec.encodeCompact(value);
+    }
+
+    /**
+     * Sizes of the two encodings in bytes, reported as the secondary results {@code jsonBytes} and
+     * {@code compactBytes} of {@link #encodedSize}.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+
+        public long jsonBytes;
+        public long compactBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            jsonBytes = 0;
+            compactBytes = 0;
+        }
+    }
+
+    /**
+     * Encodes the value once per iteration to report its sizes; the time of this benchmark is not meaningful.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void encodedSize(final EncodedSize size) {
+        size.jsonBytes += codec.encodeJson(value).length;
+        size.compactBytes += codec.encodeCompact(value).length;
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return codec.decode(json);
+    }
+
+    @Benchmark
+    public Object decodeCompact() {
+        return codec.decode(compact);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return codec.encodeJson(value);
+    }
+
+    @Benchmark
+    public byte[] encodeCompact() {
+        return codec.encodeCompact(value);
+    }
+
+    @Benchmark
+    public Object gensonDeserialize() {
+        return genson.deserialize(json, valueClass);
+    }
+
+    @Benchmark
+    public String gensonSerialize() {
+        return genson.serialize(value);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.ContractInterface;
+
+/**
+ * An in-memory ledger that the contract benchmarks run their transactions against. Each transaction goes through
+ * the same context hooks as on a peer, so the cost of the per-transaction context is part of every measurement, and
+ * transactions that write are committed in a block of their own, including MVCC validation.
+ */
+final class LedgerFixture {
+
+    /**
+     * Records created per transaction while populating the ledger.
+     */
+    private static final int POPULATE_CHUNK = 1000;
+
+    private final InMemoryLedger ledger = new InMemoryLedger();
+
+    InMemoryLedger getLedger() {
+        return ledger;
+    }
+
+    /**
+     * Runs one transaction of a contract and commits it if it wrote anything.
+     */
+    <R> R transaction(final ContractInterface contract, final Function<Context, R> function) {
+        return ledger.transaction(contract, function);
+    }
+
+    /**
+     * Creates records 0 to size - 1 through the contract, a chunk per transaction.
+     */
+    void populate(final ContractInterface contract, final int size, final ObjIntConsumer<Context> create) {
+        for (int start = 0; start < size; start += POPULATE_CHUNK) {
+            int from = start;
+            int to = Math.min(size, start + POPULATE_CHUNK);
+            transaction(contract, ctx -> {
+                for (int i = from; i < to; i++) {
+                    create.accept(ctx, i);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Picks one of the populated records at random, so that reads are not served from a warm cache line.
+     */
+    static int pick(final int size) {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+}
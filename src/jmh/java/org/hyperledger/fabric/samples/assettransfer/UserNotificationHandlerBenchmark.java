@@ -0,0 +1,114 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.contract.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transactions of {@link UserNotificationHandler} against ledgers of increasing size. Notifications are spread over
+ * 10 owners and 100 campaigns, and every notification has its own request id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserNotificationHandlerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int ledgerSize;
+
+    private final UserNotificationHandler contract = new UserNotificationHandler();
+    private LedgerFixture ledger;
+    private int nextId;
+
+    @Setup
+    public void setUp() {
+        ledger = new LedgerFixture();
+        ledger.populate(contract, ledgerSize, this::create);
+        nextId = ledgerSize;
+    }
+
+    /**
+     * Creates a notification and deletes it again in a second transaction, which keeps the ledger at its nominal
+     * size.
+     */
+    @Benchmark
+    public Object createThenDelete() {
+        int i = nextId++;
+        ledger.transaction(contract, ctx -> create(ctx, i));
+        return ledger.transaction(contract, ctx -> {
+            contract.DeleteNotification(ctx, notificationId(i));
+            return null;
+        });
+    }
+
+    @Benchmark
+    public UserNotification update() {
+        int i = LedgerFixture.pick(ledgerSize);
+        UserNotification n = BenchmarkData.userNotification(i);
+        return ledger.transaction(contract, ctx -> contract.UpdateNotification(ctx, notificationId(i),
+                n.getRequestId(), n.getCampaignId(), n.getCount(), n.getAttributeList(), n.getOwner(),
+                n.getCreatedOn(), n.getMessage(), "read"));
+    }
+
+    @Benchmark
+    public UserNotification read() {
+        String notificationId = notificationId(LedgerFixture.pick(ledgerSize));
+        return ledger.transaction(contract, ctx -> contract.ReadNotification(ctx, notificationId));
+    }
+
+    @Benchmark
+    public boolean exists() {
+        String notificationId = notificationId(LedgerFixture.pick(ledgerSize));
+        return ledger.transaction(contract, ctx -> contract.NotificationExists(ctx, notificationId));
+    }
+
+    @Benchmark
+    public String findByRequestId() {
+        String requestId = BenchmarkData.userNotification(LedgerFixture.pick(ledgerSize)).getRequestId();
+        return ledger.transaction(contract, ctx -> contract.FindNotificationByRequestId(ctx, requestId));
+    }
+
+    @Benchmark
+    public String findByOwnerPaged() {
+        String owner = "org" + LedgerFixture.pick(10);
+        return ledger.transaction(contract, ctx -> contract.FindNotificationsByOwnerPaged(ctx, owner, 100, "", 0));
+    }
+
+    /**
+     * Reads a page of 100 notifications starting at a random notification.
+     */
+    @Benchmark
+    public String getAllUserNotificationsPaged() {
+        String bookmark = UserNotificationHandler.addNotificationPrefixIfNotPresent(
+                notificationId(LedgerFixture.pick(ledgerSize)));
+        return ledger.transaction(contract, ctx -> contract.GetAllUserNotificationsPaged(ctx, 100, bookmark, 0));
+    }
+
+    private UserNotification create(final Context ctx, final int i) {
+        UserNotification n = BenchmarkData.userNotification(i);
+        return contract.CreateUserNotification(ctx, notificationId(i), n.getRequestId(), n.getCampaignId(),
+                n.getCount(), n.getAttributeList(), n.getOwner(), n.getCreatedOn(), n.getMessage(), n.getStatus());
+    }
+
+    private static String notificationId(final int i) {
+        return String.format("n-%08d", i);
+    }
+}
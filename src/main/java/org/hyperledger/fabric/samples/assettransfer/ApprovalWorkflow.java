@@ -0,0 +1,147 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+
+/**
+ * The indexes behind the approval workflow of data requests.
+ *
+ * <p>While a data request has pending attributes it has an entry {@code approver~pending, approver, requestKey} for
+ * each of its approvers, so an approver's work list is a partial composite key query. It also has a due entry
+ * {@code approvaldue_<due>_<requestKey>}, where due is its createdOn plus
+ * {@link ChaincodeConfig#APPROVAL_TIMEOUT_HOURS} written with a fixed width, so the requests that have expired by a
+ * given time are a range query from the start of the due keys. createdOn is read the way the created and updated
+ * indexes read it, see {@link TimeIndex#parse}; requests that are deleted, or whose createdOn is none of those forms,
+ * never expire.
+ */
+final class ApprovalWorkflow {
+
+    static final String PENDING_OBJECT_TYPE = "approver~pending";
+
+    static final String DUE_PREFIX = "approvaldue_";
+
+    /**
+     * Status given to the pending attributes of a request once it expires.
+     */
+    static final DataRequest.Status EXPIRED_STATUS = expiredStatus(ChaincodeConfig.APPROVAL_EXPIRED_STATUS);
+
+    private static final DateTimeFormatter DUE_FORMAT =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final Duration TIMEOUT = Duration.ofHours(ChaincodeConfig.APPROVAL_TIMEOUT_HOURS);
+
+    private ApprovalWorkflow() {
+    }
+
+    /**
+     * Moves the pending and due entries of a data request from its previous state to its current one. Either side
+     * may be null when the request is being created or deleted; entries that stay the same are not rewritten.
+     */
+    static void update(final ChaincodeStub stub, final DataRequest previous, final DataRequest current) {
+        Set<String> previousKeys = entryKeys(stub, previous);
+        Set<String> currentKeys = entryKeys(stub, current);
+
+        for (String key : previousKeys) {
+            if (!currentKeys.contains(key)) {
+                stub.delState(key);
+            }
+        }
+        for (String key : currentKeys) {
+            if (!previousKeys.contains(key)) {
+                stub.putState(key, CompositeIndex.ENTRY_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Writes the entries of a data request unconditionally; used when backfilling the indexes.
+     */
+    static void put(final ChaincodeStub stub, final DataRequest dataRequest) {
+        for (String key : entryKeys(stub, dataRequest)) {
+            stub.putState(key, CompositeIndex.ENTRY_VALUE);
+        }
+    }
+
+    /**
+     * Returns up to max due entries whose deadline has passed at the given time, oldest first.
+     */
+    static List<String> due(final ChaincodeStub stub, final Instant now, final int max) {
+        List<String> dueKeys = new ArrayList<>();
+
+        try (QueryResults<KeyValue> entries = QueryResults.of(
+                stub.getStateByRange(DUE_PREFIX, DUE_PREFIX + DUE_FORMAT.format(now) + "_\uFFFF"))) {
+            for (KeyValue entry : entries) {
+                if (dueKeys.size() == max) {
+                    break;
+                }
+                dueKeys.add(entry.getKey());
+            }
+        }
+
+        return dueKeys;
+    }
+
+    /**
+     * Returns the key of the data request a due entry belongs to.
+     */
+    static String requestKey(final String dueKey) {
+        return dueKey.substring(dueKey.indexOf('_', DUE_PREFIX.length()) + 1);
+    }
+
+    /**
+     * Returns the pending and due entry keys of a data request; none if it has nothing pending or cannot be parsed.
+     */
+    private static Set<String> entryKeys(final ChaincodeStub stub, final DataRequest dataRequest) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (dataRequest == null || Boolean.TRUE.equals(dataRequest.getDeleted())) {
+            return keys;
+        }
+
+        AttributeApprovals approvals;
+        try {
+            approvals = AttributeApprovals.of(dataRequest);
+        } catch (IllegalArgumentException e) {
+            return keys;
+        }
+        if (!approvals.hasPending()) {
+            return keys;
+        }
+
+        for (String approver : approvals.getApprovers()) {
+            keys.add(stub.createCompositeKey(PENDING_OBJECT_TYPE, approver, dataRequest.getRequestId()).toString());
+        }
+
+        Instant due = due(dataRequest);
+        if (due != null) {
+            keys.add(DUE_PREFIX + DUE_FORMAT.format(due) + "_" + dataRequest.getRequestId());
+        }
+        return keys;
+    }
+
+    private static Instant due(final DataRequest dataRequest) {
+        Instant createdOn = TimeIndex.parse(dataRequest.getCreatedOn());
+        return createdOn == null ? null : createdOn.plus(TIMEOUT);
+    }
+
+    private static DataRequest.Status expiredStatus(final String name) {
+        DataRequest.Status status = AttributeApprovals.status(name);
+        if (status != DataRequest.Status.deemedApproved && status != DataRequest.Status.deemedRejected) {
+            throw new IllegalStateException("Expired approvals must become deemedApproved or deemedRejected, not "
+                    + name);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+
+import org.hyperledger.fabric.contract.Context;
+
+/**
+ * The chaincode event describing the assets a transaction changed. Fabric keeps a single event per transaction, so
+ * changes are collected by the {@link TransactionContext} and emitted together when it is flushed, as one
+ * {@value #EVENT_NAME} event:
+ *
+ * <pre>{"changes":[{"type":"dataRequest","op":"create","key":"data_r1","record":{...}}, ...]}</pre>
+ *
+ * <p>op is {@code create}, {@code update}, {@code delete} or {@code purge}. Creates and updates carry the record as
+ * written, purges the record as it was removed, so listeners can apply a change without querying the ledger.
+ */
+final class AssetEvents {
+
+    static final String EVENT_NAME = "AssetsChanged";
+
+    static final String CREATE = "create";
+    static final String UPDATE = "update";
+    static final String DELETE = "delete";
+    static final String PURGE = "purge";
+
+    private AssetEvents() {
+    }
+
+    /**
+     * Adds a change to the event of the running transaction.
+     *
+     * @param record the JSON form of the record, or null for none
+     */
+    static void record(final Context ctx, final String assetType, final String op, final String key,
+                       final byte[] record) {
+        if (!(ctx instanceof TransactionContext)) {
+            throw new IllegalStateException("Asset events need the contract to run with a TransactionContext");
+        }
+
+        JsonResultWriter change = new JsonResultWriter()
+                .raw("{\"type\":").string(assetType)
+                .raw(",\"op\":").string(op)
+                .raw(",\"key\":").string(key);
+        if (record != null) {
+            change.raw(",\"record\":").raw(new String(record, StandardCharsets.UTF_8));
+        }
+        ((TransactionContext) ctx).addEventChange(change.raw("}").toString());
+    }
+
+    /**
+     * Returns the payload of an event holding the given changes.
+     */
+    static byte[] payload(final Iterable<String> changes) {
+        JsonResultWriter event = new JsonResultWriter().raw("{\"changes\":[");
+        String separator = "";
+        for (String change : changes) {
+            event.raw(separator).raw(change);
+            separator = ",";
+        }
+        return event.raw("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that takes console I/O off the transaction threads. Records are put on a bounded queue and a
+ * background thread writes them in batches, one write and flush per batch. When the queue is full, records are
+ * dropped rather than making a transaction wait; the number dropped is reported with the next batch.
+ */
+final class AsyncLogHandler extends Handler {
+
+    private static final int MAX_BATCH = 512;
+
+    private final BlockingQueue<LogRecord> queue;
+    private final PrintStream out;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    AsyncLogHandler(final PrintStream out, final int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = out;
+        setFormatter(new LineFormatter());
+
+        writer = new Thread(this::writeBatches, "chaincode-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(final LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        if (!queue.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Writes the queued records from the calling thread.
+     */
+    @Override
+    public void flush() {
+        List<LogRecord> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        write(batch);
+    }
+
+    /**
+     * Stops the background thread after writing what is still queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void writeBatches() {
+        List<LogRecord> batch = new ArrayList<>(MAX_BATCH);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private synchronized void write(final List<LogRecord> batch) {
+        long droppedCount = dropped.sumThenReset();
+        if (batch.isEmpty() && droppedCount == 0) {
+            return;
+        }
+
+        StringBuilder text = new StringBuilder(batch.size() * 128);
+        if (droppedCount > 0) {
+            text.append(getFormatter().format(new LogRecord(Level.WARNING,
+                    droppedCount + " log records dropped because the log queue was full")));
+        }
+        for (LogRecord record : batch) {
+            text.append(getFormatter().format(record));
+        }
+
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+        out.flush();
+    }
+
+    /**
+     * Formats a record as a single line, followed by the stack trace of its exception if it has one.
+     */
+    private static final class LineFormatter extends Formatter {
+
+        @Override
+        public String format(final LogRecord record) {
+            StringBuilder line = new StringBuilder(128)
+                    .append(record.getInstant())
+                    .append(' ').append(record.getLevel().getName())
+                    .append(' ').append(simpleName(record.getLoggerName()))
+                    .append(' ').append(formatMessage(record))
+                    .append(System.lineSeparator());
+
+            if (record.getThrown() != null) {
+                StringWriter trace = new StringWriter();
+                record.getThrown().printStackTrace(new PrintWriter(trace));
+                line.append(trace);
+            }
+            return line.toString();
+        }
+
+        private static String simpleName(final String loggerName) {
+            if (loggerName == null) {
+                return "";
+            }
+            return loggerName.substring(loggerName.lastIndexOf('.') + 1);
+        }
+    }
+}
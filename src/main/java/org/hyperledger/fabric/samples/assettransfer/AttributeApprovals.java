@@ -0,0 +1,145 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The approval state of a data request, parsed from the comma-separated lists it is stored as: attribute i of
+ * {@code attributeCodeList} has status i of {@code attributeStatusList}, and each attribute can be decided by any
+ * of the {@code approvers}.
+ *
+ * <p>An attribute starts out {@link DataRequest.Status#pending}. An approver moves it to approved or rejected, and
+ * one that is still pending when the request expires becomes deemedApproved or deemedRejected. Only pending
+ * attributes can change status.
+ */
+final class AttributeApprovals {
+
+    private final List<String> codes;
+    private final List<DataRequest.Status> statuses;
+    private final List<String> approvers;
+
+    private AttributeApprovals(final List<String> codes, final List<DataRequest.Status> statuses,
+                               final List<String> approvers) {
+        this.codes = codes;
+        this.statuses = statuses;
+        this.approvers = approvers;
+    }
+
+    /**
+     * Parses the approval state of a data request.
+     *
+     * @throws IllegalArgumentException if a status is not a {@link DataRequest.Status} or the attribute and status
+     *                                  lists differ in length
+     */
+    static AttributeApprovals of(final DataRequest dataRequest) {
+        List<String> codes = split(dataRequest.getAttributeCodeList());
+        List<String> statusNames = split(dataRequest.getAttributeStatusList());
+
+        if (codes.size() != statusNames.size()) {
+            throw new IllegalArgumentException(String.format("%d attributes but %d statuses",
+                    codes.size(), statusNames.size()));
+        }
+
+        List<DataRequest.Status> statuses = new ArrayList<>(statusNames.size());
+        for (String statusName : statusNames) {
+            statuses.add(status(statusName));
+        }
+
+        return new AttributeApprovals(codes, statuses, split(dataRequest.getApprovers()));
+    }
+
+    /**
+     * Returns the status named by a string, e.g. {@code deemedRejected}.
+     *
+     * @throws IllegalArgumentException if there is no such status
+     */
+    static DataRequest.Status status(final String name) {
+        for (DataRequest.Status status : DataRequest.Status.values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown attribute status %s, expected one of %s",
+                name, Arrays.toString(DataRequest.Status.values())));
+    }
+
+    List<String> getApprovers() {
+        return approvers;
+    }
+
+    boolean isApprover(final String approver) {
+        return approvers.contains(approver);
+    }
+
+    boolean hasPending() {
+        return statuses.contains(DataRequest.Status.pending);
+    }
+
+    /**
+     * Decides a pending attribute.
+     *
+     * @throws IllegalArgumentException if the request has no such attribute or it is no longer pending
+     */
+    AttributeApprovals decide(final String code, final DataRequest.Status decision) {
+        int index = codes.indexOf(code);
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("No attribute %s", code));
+        }
+        if (statuses.get(index) != DataRequest.Status.pending) {
+            throw new IllegalArgumentException(String.format("Attribute %s is already %s", code, statuses.get(index)));
+        }
+
+        List<DataRequest.Status> decided = new ArrayList<>(statuses);
+        decided.set(index, decision);
+        return new AttributeApprovals(codes, decided, approvers);
+    }
+
+    /**
+     * Gives every pending attribute the status of an expired approval.
+     */
+    AttributeApprovals expire(final DataRequest.Status deemed) {
+        List<DataRequest.Status> expired = new ArrayList<>(statuses);
+        Collections.replaceAll(expired, DataRequest.Status.pending, deemed);
+        return new AttributeApprovals(codes, expired, approvers);
+    }
+
+    int pendingCount() {
+        return Collections.frequency(statuses, DataRequest.Status.pending);
+    }
+
+    /**
+     * Returns a copy of a data request with this approval state and a new updatedOn.
+     */
+    DataRequest applyTo(final DataRequest dataRequest, final String updatedOn) {
+        StringBuilder statusList = new StringBuilder();
+        for (DataRequest.Status status : statuses) {
+            if (statusList.length() > 0) {
+                statusList.append(',');
+            }
+            statusList.append(status.name());
+        }
+
+        return new DataRequest(dataRequest.getRequestId(), dataRequest.getDescription(), dataRequest.getCreatedOn(),
+                updatedOn, dataRequest.getCreatedBy(), dataRequest.getOwner(), dataRequest.getAttributeCodeList(),
+                statusList.toString(), dataRequest.getApprovers(), dataRequest.getCampaignId(),
+                dataRequest.getCampaignName(), dataRequest.getCostPerImpression(), dataRequest.getDeleted());
+    }
+
+    private static List<String> split(final String list) {
+        if (list == null || list.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> items = new ArrayList<>();
+        for (String item : list.split(",")) {
+            items.add(item.trim());
+        }
+        return items;
+    }
+}
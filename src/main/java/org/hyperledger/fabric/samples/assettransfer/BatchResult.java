@@ -0,0 +1,51 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.owlike.genson.Genson;
+
+/**
+ * Outcome of a batch transaction: the ids that were written and, for every rejected item, its position in the
+ * batch and the reason. Rejected items are skipped; the rest of the batch is written in the same transaction.
+ */
+final class BatchResult {
+
+    private final List<String> created = new ArrayList<>();
+    private final List<Map<String, Object>> errors = new ArrayList<>();
+    private final Set<String> seenKeys = new HashSet<>();
+
+    /**
+     * Records the ledger key of an item, returning false if an earlier item of the batch used the same key.
+     */
+    boolean claim(final String key) {
+        return seenKeys.add(key);
+    }
+
+    void created(final String id) {
+        created.add(id);
+    }
+
+    void rejected(final int index, final String id, final String reason) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("index", index);
+        error.put("id", id);
+        error.put("error", reason);
+        errors.add(error);
+    }
+
+    String toJson(final Genson genson) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("created", created);
+        response.put("errors", errors);
+        return genson.serialize(response);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * A stub that remembers the world state it has read and buffers the writes of the current transaction.
+ *
+ * <p>Each key is fetched from the peer at most once per transaction, and {@link #getState(String)} returns the value
+ * written earlier in the same transaction rather than the committed one. Writes are sent to the peer by
+ * {@link #flush()}; since the peer only keeps the last write of a key, repeated writes of one key cost a single
+ * call. Range and composite key queries still go to the peer and, as in Fabric itself, do not see buffered writes.
+ */
+final class CachingChaincodeStub extends DelegatingChaincodeStub {
+
+    private static final byte[] ABSENT = new byte[0];
+
+    private final Map<String, byte[]> reads = new HashMap<>();
+    private final Map<String, byte[]> writes = new LinkedHashMap<>();
+
+    CachingChaincodeStub(final ChaincodeStub delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        byte[] written = writes.get(key);
+        if (written != null) {
+            return written;
+        }
+
+        byte[] value = reads.get(key);
+        if (value == null) {
+            value = super.getState(key);
+            reads.put(key, value == null ? ABSENT : value);
+        }
+        return value;
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        writes.put(key, value);
+    }
+
+    @Override
+    public void delState(final String key) {
+        writes.put(key, ABSENT);
+    }
+
+    /**
+     * Sends the buffered writes to the peer in the order they were first made.
+     */
+    void flush() {
+        for (Map.Entry<String, byte[]> write : writes.entrySet()) {
+            if (write.getValue() == ABSENT) {
+                super.delState(write.getKey());
+            } else {
+                super.putState(write.getKey(), write.getValue());
+            }
+        }
+        writes.clear();
+    }
+}
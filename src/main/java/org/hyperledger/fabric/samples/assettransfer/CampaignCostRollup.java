@@ -0,0 +1,149 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+
+/**
+ * Per-campaign totals of the cost transfers, stored under the composite key {@code cost~summary, campaignId} and
+ * adjusted by the difference between the old and new version of every cost transfer that is written.
+ *
+ * <p>A cost transfer is counted in its campaign's summary exactly when it has an entry in {@link #CAMPAIGN_INDEX}.
+ * Cost transfers written before the summaries existed have no entry and are added by
+ * {@link #count(ChaincodeStub, CampaignTransaction)} the first time a backfill visits them, which makes the backfill
+ * safe to repeat and to run alongside regular traffic. Every write of a campaign's cost transfers also writes its
+ * summary key, so concurrent writes for the same campaign conflict with each other at validation.
+ */
+final class CampaignCostRollup {
+
+    static final String SUMMARY_OBJECT_TYPE = "cost~summary";
+
+    static final CompositeIndex<CampaignTransaction> CAMPAIGN_INDEX =
+            new CompositeIndex<>("campaign~cost", CampaignTransaction::getCampaignId, CampaignTransaction::getId);
+
+    private static final CampaignCostSummaryCodec CODEC = CampaignCostSummaryCodec.INSTANCE;
+
+    private CampaignCostRollup() {
+    }
+
+    /**
+     * Moves the contribution of a cost transfer from its previous version to its current one. Either side may be
+     * null when the cost transfer is being created or deleted.
+     */
+    static void update(final ChaincodeStub stub, final CampaignTransaction previous,
+                       final CampaignTransaction current) {
+        CampaignTransaction counted = isCounted(stub, previous) ? previous : null;
+        String previousCampaign = counted == null ? null : counted.getCampaignId();
+        String currentCampaign = current == null ? null : current.getCampaignId();
+
+        if (previousCampaign != null && previousCampaign.equals(currentCampaign)) {
+            write(stub, add(add(read(stub, currentCampaign), counted, -1), current, 1));
+        } else {
+            if (previousCampaign != null) {
+                write(stub, add(read(stub, previousCampaign), counted, -1));
+            }
+            if (currentCampaign != null) {
+                write(stub, add(read(stub, currentCampaign), current, 1));
+            }
+        }
+
+        CAMPAIGN_INDEX.update(stub, counted, current);
+    }
+
+    /**
+     * Adds a cost transfer to its campaign's summary unless it is counted already.
+     *
+     * @return true if the cost transfer was added
+     */
+    static boolean count(final ChaincodeStub stub, final CampaignTransaction costTransfer) {
+        if (costTransfer.getCampaignId() == null || isCounted(stub, costTransfer)) {
+            return false;
+        }
+
+        update(stub, null, costTransfer);
+        return true;
+    }
+
+    /**
+     * Returns the summary of a campaign; a campaign without cost transfers has an all-zero summary.
+     */
+    static CampaignCostSummary read(final ChaincodeStub stub, final String campaignId) {
+        byte[] value = stub.getState(summaryKey(stub, campaignId));
+        if (value == null || value.length == 0) {
+            return empty(campaignId);
+        }
+        return CODEC.decode(value);
+    }
+
+    /**
+     * Recomputes the summary of a campaign from the cost transfers in its index, discarding any rounding error the
+     * incremental updates have accumulated.
+     */
+    static CampaignCostSummary rebuild(final ChaincodeStub stub, final String campaignId) {
+        CampaignCostSummary summary = empty(campaignId);
+
+        try (QueryResults<KeyValue> entries = QueryResults.of(CAMPAIGN_INDEX.entries(stub, campaignId))) {
+            for (KeyValue entry : entries) {
+                byte[] value = stub.getState(CompositeIndex.recordKey(stub, entry));
+                if (value != null && value.length > 0) {
+                    summary = add(summary, CampaignTransactionCodec.INSTANCE.decode(value), 1);
+                }
+            }
+        }
+
+        write(stub, summary);
+        return summary;
+    }
+
+    private static boolean isCounted(final ChaincodeStub stub, final CampaignTransaction costTransfer) {
+        String entryKey = CAMPAIGN_INDEX.entryKey(stub, costTransfer);
+        if (entryKey == null) {
+            return false;
+        }
+
+        byte[] entry = stub.getState(entryKey);
+        return entry != null && entry.length > 0;
+    }
+
+    private static CampaignCostSummary add(final CampaignCostSummary summary, final CampaignTransaction costTransfer,
+                                           final int sign) {
+        return new CampaignCostSummary(summary.getCampaignId(),
+                summary.getTransactionCount() + sign,
+                summary.getTotalCost() + sign * valueOf(costTransfer.getTotalCost()),
+                summary.getDataCost() + sign * valueOf(costTransfer.getDataCost()),
+                summary.getPlatformShare() + sign * valueOf(costTransfer.getPlatformShare()),
+                summary.getIntersectionDataCount() + sign * valueOf(costTransfer.getIntersectionDataCount()));
+    }
+
+    /**
+     * Stores a summary, or removes it once its campaign has no cost transfers left so that the totals restart from
+     * exactly zero.
+     */
+    private static void write(final ChaincodeStub stub, final CampaignCostSummary summary) {
+        String key = summaryKey(stub, summary.getCampaignId());
+        if (summary.getTransactionCount() <= 0) {
+            stub.delState(key);
+        } else {
+            stub.putState(key, CODEC.encode(summary));
+        }
+    }
+
+    private static CampaignCostSummary empty(final String campaignId) {
+        return new CampaignCostSummary(campaignId, 0L, 0.0, 0.0, 0.0, 0L);
+    }
+
+    private static String summaryKey(final ChaincodeStub stub, final String campaignId) {
+        return stub.createCompositeKey(SUMMARY_OBJECT_TYPE, campaignId).toString();
+    }
+
+    private static double valueOf(final Double value) {
+        return value == null ? 0.0 : value;
+    }
+
+    private static long valueOf(final Long value) {
+        return value == null ? 0L : value;
+    }
+}
@@ -0,0 +1,85 @@
+package org.hyperledger.fabric.samples.assettransfer;
+
+import com.owlike.genson.annotation.JsonProperty;
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import java.util.Objects;
+
+/**
+ * Totals of the cost transfers of one campaign, kept up to date by every cost transfer write.
+ */
+@DataType()
+public class CampaignCostSummary {
+
+    @Property()
+    private String campaignId;
+
+    @Property()
+    private Long transactionCount;
+
+    @Property()
+    private Double totalCost;
+
+    @Property()
+    private Double dataCost;
+
+    @Property()
+    private Double platformShare;
+
+    @Property()
+    private Long intersectionDataCount;
+
+    public String getCampaignId() { return campaignId; }
+    public Long getTransactionCount() { return transactionCount; }
+    public Double getTotalCost() { return totalCost; }
+    public Double getDataCost() { return dataCost; }
+    public Double getPlatformShare() { return platformShare; }
+    public Long getIntersectionDataCount() { return intersectionDataCount; }
+
+    public CampaignCostSummary(
+            @JsonProperty("campaignId") final String campaignId,
+            @JsonProperty("transactionCount") final Long transactionCount,
+            @JsonProperty("totalCost") final Double totalCost,
+            @JsonProperty("dataCost") final Double dataCost,
+            @JsonProperty("platformShare") final Double platformShare,
+            @JsonProperty("intersectionDataCount") final Long intersectionDataCount) {
+
+        this.campaignId = campaignId;
+        this.transactionCount = transactionCount;
+        this.totalCost = totalCost;
+        this.dataCost = dataCost;
+        this.platformShare = platformShare;
+        this.intersectionDataCount = intersectionDataCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CampaignCostSummary that = (CampaignCostSummary) o;
+        return Objects.equals(campaignId, that.campaignId) &&
+                Objects.equals(transactionCount, that.transactionCount) &&
+                Objects.equals(totalCost, that.totalCost) &&
+                Objects.equals(dataCost, that.dataCost) &&
+                Objects.equals(platformShare, that.platformShare) &&
+                Objects.equals(intersectionDataCount, that.intersectionDataCount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(campaignId, transactionCount, totalCost, dataCost, platformShare, intersectionDataCount);
+    }
+
+    @Override
+    public String toString() {
+        return "CampaignCostSummary{" +
+                "campaignId='" + campaignId + '\'' +
+                ", transactionCount=" + transactionCount +
+                ", totalCost=" + totalCost +
+                ", dataCost=" + dataCost +
+                ", platformShare=" + platformShare +
+                ", intersectionDataCount=" + intersectionDataCount +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * Ledger encoding of {@link CampaignCostSummary}. JSON fields are written in alphabetical order; the compact field
+ * order is part of the stored format: append new fields at the end and never reorder existing ones.
+ */
+final class CampaignCostSummaryCodec extends LedgerCodec<CampaignCostSummary> {
+
+    static final CampaignCostSummaryCodec INSTANCE = new CampaignCostSummaryCodec();
+
+    private CampaignCostSummaryCodec() {
+        super(192);
+    }
+
+    @Override
+    void writeJson(final CanonicalJson.Writer out, final CampaignCostSummary value) {
+        out.field("campaignId", value.getCampaignId())
+                .field("dataCost", value.getDataCost())
+                .field("intersectionDataCount", value.getIntersectionDataCount())
+                .field("platformShare", value.getPlatformShare())
+                .field("totalCost", value.getTotalCost())
+                .field("transactionCount", value.getTransactionCount());
+    }
+
+    @Override
+    CampaignCostSummary readJson(final CanonicalJson.Reader in) {
+        String campaignId = null;
+        Long transactionCount = null;
+        Double totalCost = null;
+        Double dataCost = null;
+        Double platformShare = null;
+        Long intersectionDataCount = null;
+
+        in.beginObject();
+        while (in.hasNextField()) {
+            switch (in.nextName()) {
+                case "campaignId":
+                    campaignId = in.readString();
+                    break;
+                case "transactionCount":
+                    transactionCount = in.readLong();
+                    break;
+                case "totalCost":
+                    totalCost = in.readDouble();
+                    break;
+                case "dataCost":
+                    dataCost = in.readDouble();
+                    break;
+                case "platformShare":
+                    platformShare = in.readDouble();
+                    break;
+                case "intersectionDataCount":
+                    intersectionDataCount = in.readLong();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+
+        return new CampaignCostSummary(campaignId, transactionCount, totalCost, dataCost, platformShare,
+                intersectionDataCount);
+    }
+
+    @Override
+    int fieldCount() {
+        return 6;
+    }
+
+    @Override
+    void writeFields(final CompactWriter out, final CampaignCostSummary value) {
+        out.writeString(value.getCampaignId());
+        out.writeLong(value.getTransactionCount());
+        out.writeDouble(value.getTotalCost());
+        out.writeDouble(value.getDataCost());
+        out.writeDouble(value.getPlatformShare());
+        out.writeLong(value.getIntersectionDataCount());
+    }
+
+    @Override
+    CampaignCostSummary readFields(final CompactReader in) {
+        return new CampaignCostSummary(in.readString(), in.readLong(), in.readDouble(), in.readDouble(),
+                in.readDouble(), in.readLong());
+    }
+}
@@ -10,40 +10,40 @@ import java.util.Objects;
 public class CampaignTransaction {
 
     @Property()
-    private String id;
+    private final String id;
 
     @Property()
-    private String dataRequestId;
+    private final String dataRequestId;
 
     @Property()
-    private String campaignId;
+    private final String campaignId;
 
     @Property()
-    private Double costPerImpression;
+    private final Double costPerImpression;
 
     @Property()
-    private Double channelCostPerImpression;
+    private final Double channelCostPerImpression;
 
     @Property()
-    private Long intersectionDataCount;
+    private final Long intersectionDataCount;
 
     @Property()
-    private String channel;
+    private final String channel;
 
     @Property()
-    private Double totalCost;
+    private final Double totalCost;
 
     @Property()
-    private Double dataCost;
+    private final Double dataCost;
 
     @Property()
-    private Double platformShare;
+    private final Double platformShare;
 
     @Property()
-    private String dataProviderShare;
+    private final String dataProviderShare;
 
     @Property()
-    private String dataProviderShareList;
+    private final String dataProviderShareList;
 
     public String getId() { return id; }
     public String getDataRequestId() { return dataRequestId; }
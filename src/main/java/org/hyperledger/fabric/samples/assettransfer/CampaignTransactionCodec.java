@@ -0,0 +1,126 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * Ledger encoding of {@link CampaignTransaction}. JSON fields are written in alphabetical order; the compact field
+ * order is part of the stored format: append new fields at the end and never reorder existing ones.
+ */
+final class CampaignTransactionCodec extends LedgerCodec<CampaignTransaction> {
+
+    static final CampaignTransactionCodec INSTANCE = new CampaignTransactionCodec();
+
+    private CampaignTransactionCodec() {
+        super(384);
+    }
+
+    @Override
+    void writeJson(final CanonicalJson.Writer out, final CampaignTransaction value) {
+        out.field("campaignId", value.getCampaignId())
+                .field("channel", value.getChannel())
+                .field("channelCostPerImpression", value.getChannelCostPerImpression())
+                .field("costPerImpression", value.getCostPerImpression())
+                .field("dataCost", value.getDataCost())
+                .field("dataProviderShare", value.getDataProviderShare())
+                .field("dataProviderShareList", value.getDataProviderShareList())
+                .field("dataRequestId", value.getDataRequestId())
+                .field("id", value.getId())
+                .field("intersectionDataCount", value.getIntersectionDataCount())
+                .field("platformShare", value.getPlatformShare())
+                .field("totalCost", value.getTotalCost());
+    }
+
+    @Override
+    CampaignTransaction readJson(final CanonicalJson.Reader in) {
+        String id = null;
+        String dataRequestId = null;
+        String campaignId = null;
+        Double costPerImpression = null;
+        Double channelCostPerImpression = null;
+        Long intersectionDataCount = null;
+        String channel = null;
+        Double totalCost = null;
+        Double dataCost = null;
+        Double platformShare = null;
+        String dataProviderShare = null;
+        String dataProviderShareList = null;
+
+        in.beginObject();
+        while (in.hasNextField()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = in.readString();
+                    break;
+                case "dataRequestId":
+                    dataRequestId = in.readString();
+                    break;
+                case "campaignId":
+                    campaignId = in.readString();
+                    break;
+                case "costPerImpression":
+                    costPerImpression = in.readDouble();
+                    break;
+                case "channelCostPerImpression":
+                    channelCostPerImpression = in.readDouble();
+                    break;
+                case "intersectionDataCount":
+                    intersectionDataCount = in.readLong();
+                    break;
+                case "channel":
+                    channel = in.readString();
+                    break;
+                case "totalCost":
+                    totalCost = in.readDouble();
+                    break;
+                case "dataCost":
+                    dataCost = in.readDouble();
+                    break;
+                case "platformShare":
+                    platformShare = in.readDouble();
+                    break;
+                case "dataProviderShare":
+                    dataProviderShare = in.readString();
+                    break;
+                case "dataProviderShareList":
+                    dataProviderShareList = in.readString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+
+        return new CampaignTransaction(id, dataRequestId, campaignId, costPerImpression, channelCostPerImpression,
+                intersectionDataCount, channel, totalCost, dataCost, platformShare, dataProviderShare,
+                dataProviderShareList);
+    }
+
+    @Override
+    int fieldCount() {
+        return 12;
+    }
+
+    @Override
+    void writeFields(final CompactWriter out, final CampaignTransaction value) {
+        out.writeString(value.getId());
+        out.writeString(value.getDataRequestId());
+        out.writeString(value.getCampaignId());
+        out.writeDouble(value.getCostPerImpression());
+        out.writeDouble(value.getChannelCostPerImpression());
+        out.writeLong(value.getIntersectionDataCount());
+        out.writeString(value.getChannel());
+        out.writeDouble(value.getTotalCost());
+        out.writeDouble(value.getDataCost());
+        out.writeDouble(value.getPlatformShare());
+        out.writeString(value.getDataProviderShare());
+        out.writeString(value.getDataProviderShareList());
+    }
+
+    @Override
+    CampaignTransaction readFields(final CompactReader in) {
+        return new CampaignTransaction(in.readString(), in.readString(), in.readString(), in.readDouble(),
+                in.readDouble(), in.readLong(), in.readString(), in.readDouble(), in.readDouble(), in.readDouble(),
+                in.readString(), in.readString());
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+
+/**
+ * Reflection-free JSON used by the ledger codecs.
+ *
+ * <p>The {@link Writer} produces the canonical form of a record: fields in ascending name order, null fields left
+ * out, no whitespace, strings escaped only where JSON requires it and numbers in their {@code Long.toString} or
+ * {@code Double.toString} form. Every endorsing peer therefore writes exactly the same bytes for the same record,
+ * and decoding then re-encoding a canonical value gives back the identical bytes.
+ */
+final class CanonicalJson {
+
+    private CanonicalJson() {
+    }
+
+    /**
+     * Writes one JSON object. Fields must be written in ascending name order.
+     */
+    static final class Writer {
+
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final StringBuilder out;
+        private String lastName;
+
+        Writer(final int capacity) {
+            out = new StringBuilder(capacity).append('{');
+        }
+
+        Writer field(final String name, final String value) {
+            if (value != null) {
+                name(name);
+                string(out, value);
+            }
+            return this;
+        }
+
+        Writer field(final String name, final Double value) {
+            if (value != null) {
+                if (value.isNaN() || value.isInfinite()) {
+                    throw new ChaincodeException(String.format("Field %s must be a finite number: %s", name, value));
+                }
+                name(name).append(value.doubleValue());
+            }
+            return this;
+        }
+
+        Writer field(final String name, final Long value) {
+            if (value != null) {
+                name(name).append(value.longValue());
+            }
+            return this;
+        }
+
+        Writer field(final String name, final Boolean value) {
+            if (value != null) {
+                name(name).append(value.booleanValue());
+            }
+            return this;
+        }
+
+        byte[] toBytes() {
+            return out.append('}').toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private StringBuilder name(final String name) {
+            if (lastName != null) {
+                if (lastName.compareTo(name) >= 0) {
+                    throw new IllegalStateException(String.format("Field %s written after %s", name, lastName));
+                }
+                out.append(',');
+            }
+            lastName = name;
+            // Field names are plain ASCII identifiers and never need escaping
+            return out.append('"').append(name).append("\":");
+        }
+
+        static void string(final StringBuilder out, final String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.append("\\\"");
+                        break;
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\b':
+                        out.append("\\b");
+                        break;
+                    case '\f':
+                        out.append("\\f");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+            out.append('"');
+        }
+    }
+
+    /**
+     * Pull parser for JSON objects and arrays. Scalars are converted leniently to the requested field type, so a
+     * number sent for a string field, or a numeric string sent for a number field, is accepted.
+     */
+    static final class Reader {
+
+        private final String in;
+        private int position;
+        private boolean first;
+
+        Reader(final String in) {
+            this.in = in;
+        }
+
+        Reader(final byte[] in) {
+            this(new String(in, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Returns true and consumes the literal if the next value is null.
+         */
+        boolean nextIsNull() {
+            skipWhitespace();
+            if (in.startsWith("null", position)) {
+                position += 4;
+                return true;
+            }
+            return false;
+        }
+
+        void beginObject() {
+            expect('{');
+            first = true;
+        }
+
+        /**
+         * Returns true if the current object has another field, consuming the separator before it.
+         */
+        boolean hasNextField() {
+            return hasNext('}');
+        }
+
+        String nextName() {
+            String name = parseString();
+            expect(':');
+            return name;
+        }
+
+        void beginArray() {
+            expect('[');
+            first = true;
+        }
+
+        /**
+         * Returns true if the current array has another element, consuming the separator before it.
+         */
+        boolean hasNextElement() {
+            return hasNext(']');
+        }
+
+        /**
+         * Fails unless only whitespace follows the value that was read.
+         */
+        void end() {
+            skipWhitespace();
+            if (position != in.length()) {
+                throw error("Unexpected content after JSON value");
+            }
+        }
+
+        String readString() {
+            skipWhitespace();
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            if (c == '{' || c == '[') {
+                throw error("Expected a scalar value");
+            }
+            if (nextIsNull()) {
+                return null;
+            }
+            return parseLiteral();
+        }
+
+        Double readDouble() {
+            String value = readString();
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            try {
+                return Double.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw error("Expected a number but found " + value);
+            }
+        }
+
+        Long readLong() {
+            String value = readString();
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            try {
+                return Long.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw error("Expected an integer but found " + value);
+            }
+        }
+
+        Boolean readBoolean() {
+            String value = readString();
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            if ("true".equals(value)) {
+                return Boolean.TRUE;
+            }
+            if ("false".equals(value)) {
+                return Boolean.FALSE;
+            }
+            throw error("Expected a boolean but found " + value);
+        }
+
+        /**
+         * Skips a value of any type, including nested objects and arrays.
+         */
+        void skipValue() {
+            skipWhitespace();
+            char c = peek();
+            if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                position++;
+                first = true;
+                boolean more = hasNext(close);
+                while (more) {
+                    if (close == '}') {
+                        nextName();
+                    }
+                    skipValue();
+                    more = hasNext(close);
+                }
+            } else {
+                readString();
+            }
+        }
+
+        private boolean hasNext(final char close) {
+            skipWhitespace();
+            if (peek() == close) {
+                position++;
+                first = false;
+                return false;
+            }
+            if (!first) {
+                expect(',');
+            }
+            first = false;
+            return true;
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = null;
+            int start = position;
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    if (value == null) {
+                        return in.substring(start, position - 1);
+                    }
+                    return value.append(in, start, position - 1).toString();
+                }
+                if (c == '\\') {
+                    if (value == null) {
+                        value = new StringBuilder();
+                    }
+                    value.append(in, start, position - 1).append(unescape());
+                    start = position;
+                } else if (c < 0x20) {
+                    throw error("Unescaped control character in string");
+                }
+            }
+        }
+
+        private char unescape() {
+            char c = next();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    return c;
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                case 'u':
+                    if (position + 4 > in.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        char unicode = (char) Integer.parseInt(in.substring(position, position + 4), 16);
+                        position += 4;
+                        return unicode;
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                default:
+                    throw error("Invalid escape \\" + c);
+            }
+        }
+
+        /**
+         * Reads a number, true or false as its literal text.
+         */
+        private String parseLiteral() {
+            int start = position;
+            while (position < in.length()) {
+                char c = in.charAt(position);
+                if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                    break;
+                }
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected a value");
+            }
+            return in.substring(start, position);
+        }
+
+        private void expect(final char expected) {
+            skipWhitespace();
+            if (next() != expected) {
+                position--;
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private char peek() {
+            if (position >= in.length()) {
+                throw error("Unexpected end of JSON");
+            }
+            return in.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void skipWhitespace() {
+            while (position < in.length()) {
+                char c = in.charAt(position);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+
+        private ChaincodeException error(final String message) {
+            return new ChaincodeException(String.format("Malformed JSON at offset %d: %s", position, message));
+        }
+    }
+}
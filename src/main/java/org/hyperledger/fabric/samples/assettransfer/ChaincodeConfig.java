@@ -0,0 +1,100 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * Tuning settings of the contracts, read once from environment variables when the chaincode starts.
+ *
+ * <p>Settings that change the outcome of a transaction must be identical on every endorsing peer, otherwise the
+ * endorsements will not match.
+ */
+final class ChaincodeConfig {
+
+    /**
+     * Maximum number of records accepted by a single batch transaction, or visited by a single transaction that
+     * works through the ledger in chunks, such as a backfill. Keeps the read/write set of one transaction inside the
+     * limits of the peer and the orderer.
+     */
+    static final int BATCH_MAX_SIZE = intValue("CHAINCODE_BATCH_MAX_SIZE", 500);
+
+    /**
+     * Encoding used for new world state values: {@code json} (the default) or {@code compact}. Values written in
+     * either encoding can always be read.
+     */
+    static final String LEDGER_ENCODING = stringValue("CHAINCODE_LEDGER_ENCODING", "json");
+
+    /**
+     * Hours after its createdOn at which the attributes of a data request that are still pending expire.
+     */
+    static final int APPROVAL_TIMEOUT_HOURS = intValue("CHAINCODE_APPROVAL_TIMEOUT_HOURS", 168);
+
+    /**
+     * Status given to expired attributes: {@code deemedRejected} (the default) or {@code deemedApproved}.
+     */
+    static final String APPROVAL_EXPIRED_STATUS = stringValue("CHAINCODE_APPROVAL_EXPIRED_STATUS", "deemedRejected");
+
+    /**
+     * Whether transactions record {@link TransactionMetrics}; on by default.
+     */
+    static final boolean METRICS_ENABLED = booleanValue("CHAINCODE_METRICS_ENABLED", true);
+
+    /**
+     * Seconds between the metrics summaries written to the log, or 0 (the default) for none.
+     */
+    static final int METRICS_LOG_INTERVAL_SECONDS = intValue("CHAINCODE_METRICS_LOG_INTERVAL_SECONDS", 0);
+
+    /**
+     * Level of the contract loggers, as a java.util.logging level name such as {@code INFO} (the default) or
+     * {@code FINE}.
+     */
+    static final String LOG_LEVEL = stringValue("CHAINCODE_LOG_LEVEL", "INFO");
+
+    /**
+     * Log records that may wait to be written; further records are dropped until the writer catches up.
+     */
+    static final int LOG_QUEUE_SIZE = intValue("CHAINCODE_LOG_QUEUE_SIZE", 10000);
+
+    /**
+     * Maximum number of per-key messages, such as a missing asset, logged per second by each contract.
+     */
+    static final int LOG_KEY_MESSAGES_PER_SECOND = intValue("CHAINCODE_LOG_KEY_MESSAGES_PER_SECOND", 10);
+
+    /**
+     * Estimated memory, in bytes, of the decoded records kept by {@link DecodeCache}; 0 disables the cache.
+     * Defaults to 16 MiB.
+     */
+    static final int DECODE_CACHE_BYTES = intValue("CHAINCODE_DECODE_CACHE_BYTES", 16 * 1024 * 1024);
+
+    /**
+     * Whether writes are logged to the {@link ChangeFeed}; on by default. Each logged write costs one more key in
+     * the write set of its transaction.
+     */
+    static final boolean CHANGE_FEED_ENABLED = booleanValue("CHAINCODE_CHANGE_FEED_ENABLED", true);
+
+    private ChaincodeConfig() {
+    }
+
+    static String stringValue(final String name, final String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    static boolean booleanValue(final String name, final boolean defaultValue) {
+        return Boolean.parseBoolean(stringValue(name, Boolean.toString(defaultValue)));
+    }
+
+    static int intValue(final String name, final int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(String.format("Environment variable %s must be an integer: %s", name, value), e);
+        }
+    }
+}
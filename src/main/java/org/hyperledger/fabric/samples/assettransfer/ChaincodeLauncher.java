@@ -0,0 +1,157 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import org.hyperledger.fabric.contract.ContractRouter;
+import org.hyperledger.fabric.shim.ChaincodeBase;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.NettyChaincodeServer;
+
+/**
+ * Main class of the chaincode. It serves the contracts of this package the way {@link ContractRouter#main} does, as
+ * a chaincode server when {@code CHAINCODE_SERVER_ADDRESS} is set and by connecting to the peer otherwise, but takes
+ * the settings of the executor that runs transactions from the environment.
+ *
+ * <p>The shim runs every transaction on a thread pool of its own, sized by the {@code TP_*} properties of
+ * {@link #getChaincodeConfig()}: 5 threads and a queue of 5000 unless configured. A transaction keeps its thread while
+ * it waits for the peer to answer its state reads, so with few threads a burst of transactions queues while the CPU
+ * is idle. Each of the following environment variables, when set, overrides the shim's setting:
+ *
+ * <ul>
+ * <li>{@code TP_CORE_POOL_SIZE}: threads kept running</li>
+ * <li>{@code TP_MAX_POOL_SIZE}: threads started once the queue is full</li>
+ * <li>{@code TP_QUEUE_SIZE}: transactions that may wait for a thread</li>
+ * <li>{@code TP_KEEP_ALIVE_MS}: idle time after which threads above the core size stop</li>
+ * </ul>
+ *
+ * <p>Transactions arriving while every thread is busy and the queue is full are rejected with an error. That is the
+ * shim's only policy; running them on the calling thread instead would stall the thread that receives the peer's
+ * responses.
+ */
+public final class ChaincodeLauncher extends ChaincodeBase {
+
+    static final List<String> EXECUTOR_SETTINGS =
+            Arrays.asList("TP_CORE_POOL_SIZE", "TP_MAX_POOL_SIZE", "TP_QUEUE_SIZE", "TP_KEEP_ALIVE_MS");
+
+    private static final Logger LOGGER = ContractLogging.getLogger(ChaincodeLauncher.class);
+
+    private final ContractRouter router;
+
+    ChaincodeLauncher(final String[] args) {
+        initializeLogging();
+        processEnvironmentOptions();
+        processCommandLineOptions(args);
+        validateOptions();
+
+        router = new ContractRouter(args);
+        registerContracts(router);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        ChaincodeLauncher launcher = new ChaincodeLauncher(args);
+        Properties config = launcher.getChaincodeConfig();
+        LOGGER.info(() -> String.format("Transaction executor: core=%s max=%s queue=%s keepAliveMs=%s",
+                config.getProperty("TP_CORE_POOL_SIZE", "default"), config.getProperty("TP_MAX_POOL_SIZE", "default"),
+                config.getProperty("TP_QUEUE_SIZE", "default"), config.getProperty("TP_KEEP_ALIVE_MS", "default")));
+
+        String serverAddress = System.getenv("CHAINCODE_SERVER_ADDRESS");
+        if (serverAddress != null && !serverAddress.trim().isEmpty()) {
+            new NettyChaincodeServer(launcher, launcher.getChaincodeServerConfig()).start();
+        } else {
+            launcher.start(args);
+        }
+    }
+
+    @Override
+    public Response init(final ChaincodeStub stub) {
+        return router.init(stub);
+    }
+
+    @Override
+    public Response invoke(final ChaincodeStub stub) {
+        return router.invoke(stub);
+    }
+
+    /**
+     * Returns the shim configuration with the executor settings of the environment applied.
+     */
+    @Override
+    public Properties getChaincodeConfig() {
+        Properties config = super.getChaincodeConfig();
+        for (String name : EXECUTOR_SETTINGS) {
+            String value = System.getenv(name);
+            if (value != null && !value.trim().isEmpty()) {
+                config.setProperty(name, Integer.toString(positive(name)));
+            }
+        }
+
+        int core = Integer.parseInt(config.getProperty("TP_CORE_POOL_SIZE", "5"));
+        int max = Integer.parseInt(config.getProperty("TP_MAX_POOL_SIZE", "5"));
+        if (max < core) {
+            throw new IllegalStateException(String.format(
+                    "TP_MAX_POOL_SIZE (%d) must not be less than TP_CORE_POOL_SIZE (%d)", max, core));
+        }
+        return config;
+    }
+
+    private static int positive(final String name) {
+        int value = ChaincodeConfig.intValue(name, 0);
+        if (value <= 0) {
+            throw new IllegalStateException(String.format("Environment variable %s must be positive: %d", name, value));
+        }
+        return value;
+    }
+
+    /**
+     * Registers the contracts on the classpath with the router, as {@link ContractRouter#main} does. The router is
+     * final and keeps this step to itself, so it is called reflectively.
+     */
+    private static void registerContracts(final ContractRouter router) {
+        Object routingRegistry;
+        Object typeRegistry;
+        try {
+            call(router, "findAllContracts");
+            routingRegistry = call(router, "getRoutingRegistry");
+            typeRegistry = call(router, "getTypeRegistry");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot register the contracts with the contract router", e);
+        }
+
+        // The metadata only serves the GetMetadata system transaction, so the chaincode still starts without it
+        try {
+            for (Method initialize : Class.forName("org.hyperledger.fabric.contract.metadata.MetadataBuilder")
+                    .getMethods()) {
+                if ("initialize".equals(initialize.getName()) && initialize.getParameterCount() == 2) {
+                    initialize.invoke(null, routingRegistry, typeRegistry);
+                    return;
+                }
+            }
+            LOGGER.warning("Contract metadata not initialized: MetadataBuilder.initialize not found");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warning(() -> "Contract metadata not initialized: " + e);
+        }
+    }
+
+    private static Object call(final ContractRouter router, final String name)
+            throws ReflectiveOperationException {
+        Method method = ContractRouter.class.getDeclaredMethod(name);
+        method.setAccessible(true);
+        try {
+            return method.invoke(router);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
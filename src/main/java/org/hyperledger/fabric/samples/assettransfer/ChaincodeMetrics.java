@@ -0,0 +1,204 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Per-function histograms of the {@link TransactionMetrics} of every transaction this chaincode process has run,
+ * since it started. The figures are local to the process and differ between peers, so they are only ever returned
+ * by evaluate transactions.
+ *
+ * <p>Transactions that throw never reach afterTransaction, so they are counted as started but not as completed; the
+ * difference is the number of failed or still running transactions.
+ */
+final class ChaincodeMetrics {
+
+    /**
+     * Functions tracked separately; further names, e.g. of unknown transactions, are aggregated under "other".
+     */
+    private static final int MAX_FUNCTIONS = 256;
+
+    private static final ConcurrentMap<String, FunctionMetrics> FUNCTIONS = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = ContractLogging.getLogger(ChaincodeMetrics.class);
+
+    static {
+        int interval = ChaincodeConfig.METRICS_LOG_INTERVAL_SECONDS;
+        if (ChaincodeConfig.METRICS_ENABLED && interval > 0) {
+            ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "chaincode-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            logger.scheduleAtFixedRate(ChaincodeMetrics::log, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    private ChaincodeMetrics() {
+    }
+
+    static void started(final TransactionMetrics transaction) {
+        function(transaction.getFunction()).started.increment();
+    }
+
+    static void completed(final TransactionMetrics transaction, final long latencyMicros) {
+        FunctionMetrics function = function(transaction.getFunction());
+        function.latencyMicros.record(latencyMicros);
+        function.stateReads.record(transaction.stateReads);
+        function.stateWrites.record(transaction.stateWrites);
+        function.rangeScans.record(transaction.rangeScans);
+        function.keysScanned.record(transaction.keysScanned);
+        function.keysReturned.record(transaction.keysReturned);
+        function.bytesRead.record(transaction.bytesRead);
+        function.bytesWritten.record(transaction.bytesWritten);
+    }
+
+    /**
+     * Returns the histograms of every function as a JSON object keyed by function name.
+     */
+    static String toJson() {
+        JsonResultWriter json = new JsonResultWriter().raw("{");
+        String separator = "";
+
+        for (Map.Entry<String, FunctionMetrics> function : new TreeMap<>(FUNCTIONS).entrySet()) {
+            FunctionMetrics metrics = function.getValue();
+            json.raw(separator).string(function.getKey())
+                    .raw(":{\"started\":").number(metrics.started.sum())
+                    .raw(",\"completed\":").number(metrics.latencyMicros.count());
+            metrics.latencyMicros.toJson(json.raw(",\"latencyMicros\":"));
+            metrics.stateReads.toJson(json.raw(",\"stateReads\":"));
+            metrics.stateWrites.toJson(json.raw(",\"stateWrites\":"));
+            metrics.rangeScans.toJson(json.raw(",\"rangeScans\":"));
+            metrics.keysScanned.toJson(json.raw(",\"keysScanned\":"));
+            metrics.keysReturned.toJson(json.raw(",\"keysReturned\":"));
+            metrics.bytesRead.toJson(json.raw(",\"bytesRead\":"));
+            metrics.bytesWritten.toJson(json.raw(",\"bytesWritten\":"));
+            json.raw("}");
+            separator = ",";
+        }
+
+        return json.raw("}").toString();
+    }
+
+    /**
+     * Returns a one-line summary of the functions that have completed transactions.
+     */
+    static String summary() {
+        StringBuilder line = new StringBuilder("chaincode metrics:");
+
+        for (Map.Entry<String, FunctionMetrics> function : new TreeMap<>(FUNCTIONS).entrySet()) {
+            FunctionMetrics metrics = function.getValue();
+            if (metrics.latencyMicros.count() == 0) {
+                continue;
+            }
+            line.append(' ').append(function.getKey())
+                    .append("[n=").append(metrics.latencyMicros.count())
+                    .append(" p50=").append(metrics.latencyMicros.percentile(0.5)).append("us")
+                    .append(" p99=").append(metrics.latencyMicros.percentile(0.99)).append("us")
+                    .append(" reads=").append(metrics.stateReads.sum())
+                    .append(" writes=").append(metrics.stateWrites.sum())
+                    .append(" scanned=").append(metrics.keysScanned.sum())
+                    .append(" returned=").append(metrics.keysReturned.sum())
+                    .append(']');
+        }
+
+        return line.toString();
+    }
+
+    private static void log() {
+        LOGGER.info(() -> summary() + "; " + DecodeCache.INSTANCE.summary());
+    }
+
+    private static FunctionMetrics function(final String name) {
+        FunctionMetrics metrics = FUNCTIONS.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (FUNCTIONS.size() >= MAX_FUNCTIONS) {
+            return FUNCTIONS.computeIfAbsent("other", other -> new FunctionMetrics());
+        }
+        return FUNCTIONS.computeIfAbsent(name, function -> new FunctionMetrics());
+    }
+
+    private static final class FunctionMetrics {
+
+        private final LongAdder started = new LongAdder();
+        private final Histogram latencyMicros = new Histogram();
+        private final Histogram stateReads = new Histogram();
+        private final Histogram stateWrites = new Histogram();
+        private final Histogram rangeScans = new Histogram();
+        private final Histogram keysScanned = new Histogram();
+        private final Histogram keysReturned = new Histogram();
+        private final Histogram bytesRead = new Histogram();
+        private final Histogram bytesWritten = new Histogram();
+    }
+
+    /**
+     * A histogram of non-negative values with power-of-two buckets: bucket b holds the values below 2^b that do not
+     * fit in bucket b - 1. Percentiles are reported as the upper bound of their bucket, so they are at most a factor
+     * of two high, which is precise enough to tell cheap functions from expensive ones.
+     */
+    static final class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(final long value) {
+            long v = Math.max(0, value);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(v));
+            count.increment();
+            sum.add(v);
+            max.accumulateAndGet(v, Math::max);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long sum() {
+            return sum.sum();
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given fraction of the values, or 0 if there are none.
+         */
+        long percentile(final double fraction) {
+            long total = count.sum();
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+
+            for (int bucket = 0; bucket < buckets.length(); bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank && seen > 0) {
+                    return Math.min(bucket == 0 ? 0 : (1L << bucket) - 1, max.get());
+                }
+            }
+            return 0;
+        }
+
+        void toJson(final JsonResultWriter json) {
+            json.raw("{\"count\":").number(count())
+                    .raw(",\"sum\":").number(sum())
+                    .raw(",\"max\":").number(max.get())
+                    .raw(",\"p50\":").number(percentile(0.5))
+                    .raw(",\"p90\":").number(percentile(0.9))
+                    .raw(",\"p99\":").number(percentile(0.99))
+                    .raw("}");
+        }
+    }
+}
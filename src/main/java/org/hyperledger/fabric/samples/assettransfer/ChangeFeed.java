@@ -0,0 +1,154 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+
+/**
+ * A log of the writes made to each asset type, so that off-chain read models can pull the changes since they last
+ * synchronised instead of re-reading every record.
+ *
+ * <p>Every put or delete of an asset writes an entry {@code change_<type>_<position>} holding
+ * {@code {"key":...,"op":...,"position":...}}, where the position is {@code <txTime>~<txId>~<key>} with the
+ * transaction timestamp in UTC at a fixed width, so the entries sort by time. The changes after a position are then
+ * a range query; simple keys are used because the peer does not range-query composite keys. Nothing is read while
+ * recording, and every transaction writes keys of its own, so concurrent writes of one type do not conflict. A key
+ * written twice in one transaction keeps one entry, with the last operation.
+ *
+ * <p>The timestamp is set by the client when it proposes the transaction, so a transaction can commit after others
+ * stamped later than it; a consumer that resumes exactly from its last position may then miss it. Consumers that
+ * need every change resume from a time a little before their position, as long as the longest time a transaction
+ * takes from proposal to commit, and skip the positions they have already applied.
+ *
+ * <p>{@link #compact} removes entries older than a retention watermark and records the last one removed as the
+ * type's floor, {@code changefloor_<type>}; a consumer whose position is below the floor has missed changes and must
+ * re-read the assets in full.
+ */
+final class ChangeFeed {
+
+    static final String DATA_REQUEST = "dataRequest";
+    static final String NOTIFICATION = "notification";
+    static final String COST_TRANSFER = "costTransfer";
+
+    static final List<String> ASSET_TYPES = Arrays.asList(DATA_REQUEST, NOTIFICATION, COST_TRANSFER);
+
+    static final String PUT = "put";
+    static final String DELETE = "delete";
+
+    private static final String FLOOR_PREFIX = "changefloor_";
+    private static final String ENTRY_PREFIX = "change_";
+
+    private ChangeFeed() {
+    }
+
+    /**
+     * Logs a write of an asset at the position of the transaction.
+     */
+    static void record(final Context ctx, final String assetType, final String key, final String op) {
+        if (!ChaincodeConfig.CHANGE_FEED_ENABLED) {
+            return;
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+        String position = TimeIndex.format(stub.getTxTimestamp()) + "~" + stub.getTxId() + "~" + key;
+        String entry = new JsonResultWriter()
+                .raw("{\"key\":").string(key)
+                .raw(",\"op\":").string(op)
+                .raw(",\"position\":").string(position)
+                .raw("}").toString();
+        stub.putState(entryPrefix(assetType) + position, entry.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns up to limit changes of an asset type after the given position, oldest first, as
+     * {@code {"changes":[...],"position":"...","resyncRequired":b}}: position is the one to pass to the next call,
+     * and resyncRequired is true if changes after the given position have already been compacted away.
+     *
+     * @param since a position returned earlier, a timestamp to start from as an ISO-8601 instant or epoch
+     *              milliseconds, or empty to start at the floor, from the oldest change kept
+     */
+    static String changesSince(final ChaincodeStub stub, final String assetType, final String since, final int limit) {
+        String floor = readFloor(stub, assetType);
+        String position = since == null ? "" : since;
+        String startKey;
+        boolean resyncRequired;
+        if (position.isEmpty()) {
+            // Nothing has been missed by a consumer that starts out, so it starts after the compacted entries
+            position = floor;
+            startKey = entryPrefix(assetType) + (floor.isEmpty() ? "" : floor + "\u0000");
+            resyncRequired = false;
+        } else {
+            if (TimeIndex.parse(position) != null) {
+                position = TimeIndex.format(TimeIndex.parse(position));
+                startKey = entryPrefix(assetType) + position;
+            } else {
+                startKey = entryPrefix(assetType) + position + "\u0000";
+            }
+            resyncRequired = position.compareTo(floor) < 0;
+        }
+
+        JsonResultWriter json = new JsonResultWriter().raw("{\"changes\":").beginArray();
+        try (QueryResults<KeyValue> entries = QueryResults.of(
+                stub.getStateByRange(startKey, entryPrefix(assetType) + "\uFFFF"))) {
+            for (KeyValue entry : entries) {
+                if (json.elementCount() == limit) {
+                    break;
+                }
+                json.value(entry.getValue());
+                position = entry.getKey().substring(entryPrefix(assetType).length());
+            }
+        }
+
+        return json.endArray()
+                .raw(",\"position\":").string(position)
+                .raw(",\"resyncRequired\":").raw(Boolean.toString(resyncRequired))
+                .raw("}").toString();
+    }
+
+    /**
+     * Deletes up to maxEntries entries of an asset type recorded before the watermark, oldest first, and raises the
+     * floor of the type to the last one deleted.
+     *
+     * @return the number of entries deleted
+     */
+    static int compact(final ChaincodeStub stub, final String assetType, final Instant watermark,
+                       final int maxEntries) {
+        String floor = readFloor(stub, assetType);
+        int deleted = 0;
+
+        try (QueryResults<KeyValue> entries = QueryResults.of(stub.getStateByRange(
+                entryPrefix(assetType), entryPrefix(assetType) + TimeIndex.format(watermark)))) {
+            for (KeyValue entry : entries) {
+                if (deleted == maxEntries) {
+                    break;
+                }
+                stub.delState(entry.getKey());
+                floor = entry.getKey().substring(entryPrefix(assetType).length());
+                deleted++;
+            }
+        }
+
+        if (deleted > 0) {
+            stub.putState(FLOOR_PREFIX + assetType, floor.getBytes(StandardCharsets.UTF_8));
+        }
+        return deleted;
+    }
+
+    private static String entryPrefix(final String assetType) {
+        return ENTRY_PREFIX + assetType + "_";
+    }
+
+    private static String readFloor(final ChaincodeStub stub, final String assetType) {
+        byte[] value = stub.getState(FLOOR_PREFIX + assetType);
+        return value == null ? "" : new String(value, StandardCharsets.UTF_8);
+    }
+}
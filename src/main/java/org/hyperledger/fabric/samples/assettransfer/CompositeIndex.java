@@ -0,0 +1,173 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+/**
+ * A secondary index kept in world state as composite keys of the form {@code objectType, attribute, recordKey}.
+ * Looking up an attribute value is a partial composite key query, so its cost depends on the number of matches
+ * rather than on the number of records of that type.
+ *
+ * @param <T> the indexed record type
+ */
+final class CompositeIndex<T> {
+
+    /**
+     * Index entries carry no payload; an empty value would be treated as a delete by the peer.
+     */
+    static final byte[] ENTRY_VALUE = new byte[] {0};
+
+    private final String objectType;
+    private final Function<T, String> attribute;
+    private final Function<T, String> recordKey;
+
+    /**
+     * @param objectType the composite key object type, e.g. {@code campaign~request}
+     * @param attribute extracts the indexed value; returning null leaves the record out of the index
+     * @param recordKey extracts the ledger key of the record
+     */
+    CompositeIndex(final String objectType, final Function<T, String> attribute, final Function<T, String> recordKey) {
+        this.objectType = objectType;
+        this.attribute = attribute;
+        this.recordKey = recordKey;
+    }
+
+    String getObjectType() {
+        return objectType;
+    }
+
+    /**
+     * Returns the index entry key of a record, or null if the record is not indexed.
+     */
+    String entryKey(final ChaincodeStub stub, final T record) {
+        if (record == null) {
+            return null;
+        }
+
+        String value = attribute.apply(record);
+        if (value == null) {
+            return null;
+        }
+
+        return stub.createCompositeKey(objectType, value, recordKey.apply(record)).toString();
+    }
+
+    /**
+     * Moves the entry of a record from its previous state to its current one. Either side may be null when the
+     * record is being created or removed; nothing is written when the entry key does not change.
+     */
+    void update(final ChaincodeStub stub, final T previous, final T current) {
+        String previousKey = entryKey(stub, previous);
+        String currentKey = entryKey(stub, current);
+
+        if (Objects.equals(previousKey, currentKey)) {
+            return;
+        }
+        if (previousKey != null) {
+            stub.delState(previousKey);
+        }
+        if (currentKey != null) {
+            stub.putState(currentKey, ENTRY_VALUE);
+        }
+    }
+
+    /**
+     * Writes the entry of a record unconditionally; used when backfilling an index.
+     *
+     * @return true if the record is indexed
+     */
+    boolean put(final ChaincodeStub stub, final T record) {
+        String key = entryKey(stub, record);
+        if (key == null) {
+            return false;
+        }
+
+        stub.putState(key, ENTRY_VALUE);
+        return true;
+    }
+
+    /**
+     * Writes the entry for an attribute value read straight from a stored value, e.g. by a {@link FieldExtractor},
+     * without decoding the record; a null value leaves the record out of the index.
+     *
+     * @return true if the record is indexed
+     */
+    boolean put(final ChaincodeStub stub, final String value, final String recordKey) {
+        if (value == null) {
+            return false;
+        }
+
+        stub.putState(stub.createCompositeKey(objectType, value, recordKey).toString(), ENTRY_VALUE);
+        return true;
+    }
+
+    /**
+     * Returns the index entries for an attribute value.
+     */
+    QueryResultsIterator<KeyValue> entries(final ChaincodeStub stub, final String value) {
+        return stub.getStateByPartialCompositeKey(objectType, value);
+    }
+
+    /**
+     * Returns the number of records indexed under an attribute value, counting index entries only.
+     */
+    long count(final ChaincodeStub stub, final String value) {
+        long count = 0;
+        try (QueryResults<KeyValue> entries = QueryResults.of(entries(stub, value))) {
+            for (KeyValue ignored : entries) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of records indexed under every attribute value, counting index entries only. The whole
+     * index is scanned, so this belongs in evaluate transactions.
+     */
+    GroupCounts countByValue(final ChaincodeStub stub) {
+        GroupCounts counts = new GroupCounts();
+        try (QueryResults<KeyValue> entries = QueryResults.of(
+                stub.getStateByPartialCompositeKey(stub.createCompositeKey(objectType)))) {
+            for (KeyValue entry : entries) {
+                counts.add(stub.splitCompositeKey(entry.getKey()).getAttributes().get(0));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the records indexed under an attribute value by one of their fields. Each record is read, but only
+     * the field is extracted from its stored bytes.
+     */
+    GroupCounts countByField(final ChaincodeStub stub, final String value, final LedgerCodec<?> codec,
+                             final FieldExtractor field) {
+        GroupCounts counts = new GroupCounts();
+        try (QueryResults<KeyValue> entries = QueryResults.of(entries(stub, value))) {
+            for (KeyValue entry : entries) {
+                byte[] record = stub.getState(recordKey(stub, entry));
+                if (record != null && record.length > 0) {
+                    counts.add(field.extractFirst(codec, record));
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the ledger key of the record an index entry points to.
+     */
+    static String recordKey(final ChaincodeStub stub, final KeyValue entry) {
+        List<String> attributes = stub.splitCompositeKey(entry.getKey()).getAttributes();
+        return attributes.get(attributes.size() - 1);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logging of the contracts, on top of java.util.logging as used by the Fabric shim. All loggers of this package
+ * share one {@link AsyncLogHandler} writing to standard output, at the level set by {@code CHAINCODE_LOG_LEVEL}, and
+ * do not pass their records on to the handlers of the shim.
+ *
+ * <p>Build messages lazily, e.g. {@code LOGGER.fine(() -> "read " + key)}, so that disabled levels cost no more than
+ * a level check, and send messages that are logged per key through a {@link RateLimitedLogger}.
+ */
+final class ContractLogging {
+
+    private static final Logger PACKAGE_LOGGER = configure(Logger.getLogger(ContractLogging.class.getPackageName()));
+
+    private ContractLogging() {
+    }
+
+    static Logger getLogger(final Class<?> type) {
+        return Logger.getLogger(type.getName());
+    }
+
+    /**
+     * Returns a logger for per-key messages, limited to {@code CHAINCODE_LOG_KEY_MESSAGES_PER_SECOND}.
+     */
+    static RateLimitedLogger getRateLimitedLogger(final Class<?> type) {
+        return new RateLimitedLogger(getLogger(type), ChaincodeConfig.LOG_KEY_MESSAGES_PER_SECOND);
+    }
+
+    private static Logger configure(final Logger logger) {
+        Level level = Level.parse(ChaincodeConfig.LOG_LEVEL.toUpperCase());
+        AsyncLogHandler handler = new AsyncLogHandler(System.out, ChaincodeConfig.LOG_QUEUE_SIZE);
+        handler.setLevel(level);
+
+        logger.setLevel(level);
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        Runtime.getRuntime().addShutdownHook(new Thread(handler::close, "chaincode-log-shutdown"));
+        return logger;
+    }
+}
@@ -1,13 +1,12 @@
 package org.hyperledger.fabric.samples.assettransfer;
 
 import java.util.*;
+import java.util.logging.Level;
 import org.hyperledger.fabric.contract.Context;
-import org.hyperledger.fabric.contract.ContractInterface;
 import org.hyperledger.fabric.contract.annotation.*;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
-import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
 import com.owlike.genson.Genson;
 
 @Contract(
@@ -24,13 +23,22 @@ import com.owlike.genson.Genson;
                         name = "Cost Transfer",
                         url = "https://hyperledger.example.com")))
 @Default
-public final class CostTransactionRequest implements ContractInterface {
+public final class CostTransactionRequest implements TransactionContextContract {
 
     private final Genson genson = new Genson();
 
+    private static final RateLimitedLogger KEY_LOG =
+            ContractLogging.getRateLimitedLogger(CostTransactionRequest.class);
+
+    private final CampaignTransactionCodec codec = CampaignTransactionCodec.INSTANCE;
+
+    private static final FieldExtractor CHANNEL = new FieldExtractor("channel");
+
     private enum CostTransferErrors {
         COST_NOT_FOUND,
-        COST_ALREADY_EXISTS
+        COST_ALREADY_EXISTS,
+        INVALID_BATCH,
+        INVALID_BOOKMARK
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -53,35 +61,130 @@ public final class CostTransactionRequest implements ContractInterface {
 
         if (CampaignTransactionExists(ctx, id)) {
             String errorMessage = String.format("Asset %s already exists", id);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, "CAMPAIGN_COST_ALREADY_EXISTS");
         }
 
-        return putAsset(ctx, new CampaignTransaction("cost_" + id, dataRequestId, campaignId,
+        return putAsset(ctx, null, new CampaignTransaction(addCostPrefixIfNotPresent(id), dataRequestId, campaignId,
                 costPerImpression, channelCostPerImpression, intersectionDataCount, channel, totalCost,
                 dataCost, platformShare, dataProviderShare, dataProviderShareList));
     }
 
+    /**
+     * Creates many campaign transactions in one submit. Items without an id, or whose id is repeated in the batch
+     * or already on the ledger, are rejected and reported; the other items are written.
+     *
+     * @param ctx the transaction context
+     * @param campaignTransactionsJson a JSON array of campaign transactions, in the same shape as returned by
+     *                                 FindByTransferId
+     * @return the ids that were created and the errors of the rejected items
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CreateCampaignTransactionsBatch(final Context ctx, final String campaignTransactionsJson) {
+        CampaignTransaction[] costTransfers = parseBatch(campaignTransactionsJson);
+        BatchResult result = new BatchResult();
+
+        for (int i = 0; i < costTransfers.length; i++) {
+            CampaignTransaction item = costTransfers[i];
+            String id = item == null ? null : item.getId();
+
+            if (id == null || id.isEmpty()) {
+                result.rejected(i, id, "id is required");
+                continue;
+            }
+
+            String key = addCostPrefixIfNotPresent(id);
+            if (!result.claim(key)) {
+                result.rejected(i, id, "Duplicate id in batch");
+                continue;
+            }
+            if (CostTransferExists(ctx, key)) {
+                result.rejected(i, id, String.format("Asset %s already exists", id));
+                continue;
+            }
+
+            putAsset(ctx, null, new CampaignTransaction(key, item.getDataRequestId(), item.getCampaignId(),
+                    item.getCostPerImpression(), item.getChannelCostPerImpression(), item.getIntersectionDataCount(),
+                    item.getChannel(), item.getTotalCost(), item.getDataCost(), item.getPlatformShare(),
+                    item.getDataProviderShare(), item.getDataProviderShareList()));
+            result.created(id);
+        }
+
+        return result.toJson(genson);
+    }
+
+    private CampaignTransaction[] parseBatch(final String campaignTransactionsJson) {
+        CampaignTransaction[] costTransfers;
+        try {
+            costTransfers = codec.decodeJsonArray(campaignTransactionsJson).toArray(new CampaignTransaction[0]);
+        } catch (RuntimeException e) {
+            throw new ChaincodeException("Batch is not a JSON array of campaign transactions: " + e.getMessage(),
+                    CostTransferErrors.INVALID_BATCH.toString());
+        }
+
+        if (costTransfers == null || costTransfers.length == 0) {
+            throw new ChaincodeException("Batch is empty", CostTransferErrors.INVALID_BATCH.toString());
+        }
+        if (costTransfers.length > ChaincodeConfig.BATCH_MAX_SIZE) {
+            String errorMessage = String.format("Batch of %d campaign transactions exceeds the maximum of %d",
+                    costTransfers.length, ChaincodeConfig.BATCH_MAX_SIZE);
+            throw new ChaincodeException(errorMessage, CostTransferErrors.INVALID_BATCH.toString());
+        }
+
+        return costTransfers;
+    }
+
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public boolean CampaignTransactionExists(final Context ctx, final String id) {
         ChaincodeStub stub = ctx.getStub();
-        String data = stub.getStringState(id);
+        String data = stub.getStringState(addCostPrefixIfNotPresent(id));
         return (data != null && !data.isEmpty());
     }
 
-    private CampaignTransaction putAsset(final Context ctx, final CampaignTransaction costTransfer) {
-        String sortedJson = genson.serialize(costTransfer);
-        ctx.getStub().putStringState(costTransfer.getId(), sortedJson);
+    private CampaignTransaction putAsset(final Context ctx, final CampaignTransaction previous,
+                                         final CampaignTransaction costTransfer) {
+        byte[] value = codec.encode(costTransfer);
+        ctx.getStub().putState(costTransfer.getId(), value);
+        ChangeFeed.record(ctx, ChangeFeed.COST_TRANSFER, costTransfer.getId(), ChangeFeed.PUT);
+        AssetEvents.record(ctx, ChangeFeed.COST_TRANSFER, previous == null ? AssetEvents.CREATE : AssetEvents.UPDATE,
+                costTransfer.getId(), codec.toJson(value));
+        CampaignCostRollup.update(ctx.getStub(), previous, costTransfer);
         return costTransfer;
     }
 
+    private CampaignTransaction readAsset(final Context ctx, final String key) {
+        byte[] asset = ctx.getStub().getState(key);
+        if (asset == null || asset.length == 0) {
+            return null;
+        }
+        return DecodeCache.INSTANCE.decode(codec, asset);
+    }
+
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public CampaignTransaction FindByTransferId(final Context ctx, final String transferId) {
-        String assetJSON = ctx.getStub().getStringState("cost_" + transferId);
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        CampaignTransaction asset = readAsset(ctx, addCostPrefixIfNotPresent(transferId));
+        if (asset == null) {
             throw new ChaincodeException(String.format("Cost Transfer %s does not exist", transferId), CostTransferErrors.COST_NOT_FOUND.toString());
         }
-        return genson.deserialize(assetJSON, CampaignTransaction.class);
+        return asset;
+    }
+
+    /**
+     * Retrieves several cost transfers in one call.
+     *
+     * @param transferIdsJson a JSON array of transfer ids, with or without the cost_ prefix
+     * @return the cost transfers found and the ids that were not, as {"records":[...],"missing":[...]}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindByTransferIds(final Context ctx, final String transferIdsJson) {
+        List<String> transferIds;
+        try {
+            transferIds = MultiGet.parseIds(transferIdsJson);
+        } catch (IllegalArgumentException e) {
+            throw new ChaincodeException(e.getMessage(), CostTransferErrors.INVALID_BATCH.toString());
+        }
+
+        return MultiGet.read(ctx.getStub(), codec, transferIds, CostTransactionRequest::addCostPrefixIfNotPresent);
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -99,23 +202,29 @@ public final class CostTransactionRequest implements ContractInterface {
                                                                    final String dataProviderShare,
                                                                    final String dataProviderShareList) {
 
-        if (!CampaignTransactionExists(ctx, id)) {
+        CampaignTransaction previous = readAsset(ctx, addCostPrefixIfNotPresent(id));
+
+        if (previous == null) {
             String errorMessage = String.format("Asset %s does not exist", id);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, "CAMPAIGN_COST_NOT_FOUND");
         }
 
-        return putAsset(ctx, new CampaignTransaction("cost_" + id, dataRequestId, campaignId,
+        return putAsset(ctx, previous, new CampaignTransaction(previous.getId(), dataRequestId, campaignId,
                 costPerImpression, channelCostPerImpression, intersectionDataCount, channel,
                 totalCost, dataCost, platformShare, dataProviderShare, dataProviderShareList));
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteCostTransfer(final Context ctx, final String transferId) {
-        if (!CostTransferExists(ctx, transferId)) {
+        CampaignTransaction previous = readAsset(ctx, addCostPrefixIfNotPresent(transferId));
+        if (previous == null) {
             throw new ChaincodeException(String.format("Cost Transfer %s does not exist", transferId), CostTransferErrors.COST_NOT_FOUND.toString());
         }
-        ctx.getStub().delState(transferId);
+        ctx.getStub().delState(previous.getId());
+        ChangeFeed.record(ctx, ChangeFeed.COST_TRANSFER, previous.getId(), ChangeFeed.DELETE);
+        AssetEvents.record(ctx, ChangeFeed.COST_TRANSFER, AssetEvents.DELETE, previous.getId(), null);
+        CampaignCostRollup.update(ctx.getStub(), previous, null);
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
@@ -128,15 +237,131 @@ public final class CostTransactionRequest implements ContractInterface {
         return (input != null && !input.startsWith("cost_")) ? "cost_" + input : input;
     }
 
+    /**
+     * Returns the totals of a campaign's cost transfers without reading them: the summary is kept up to date by
+     * every create, update and delete.
+     *
+     * @param ctx the transaction context
+     * @param campaignId the campaign to look up
+     * @return the campaign totals, all zero if the campaign has no cost transfers
+     */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String GetAllCostTransfers(final Context ctx) {
+    public CampaignCostSummary GetCampaignCostSummary(final Context ctx, final String campaignId) {
+        return CampaignCostRollup.read(ctx.getStub(), campaignId);
+    }
+
+    /**
+     * Counts the cost transfers of a campaign per channel, reading only the channel of each stored value. Only
+     * cost transfers counted in the campaign summary are indexed; see BackfillCampaignCostSummaries.
+     *
+     * @param ctx the transaction context
+     * @param campaignId the campaign to look up
+     * @return {"campaignId":...,"total":n,"byChannel":{"channel":n, ...}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountCostTransfersByCampaign(final Context ctx, final String campaignId) {
+        return CampaignCostRollup.CAMPAIGN_INDEX.countByField(ctx.getStub(), campaignId, codec, CHANNEL)
+                .toJson("campaignId", campaignId, "byChannel");
+    }
+
+    /**
+     * Counts the cost transfers of every campaign in one pass over the campaign index, without reading them.
+     *
+     * @param ctx the transaction context
+     * @return {"total":n,"byCampaign":{"campaignId":n, ...}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountCostTransfersPerCampaign(final Context ctx) {
+        return CampaignCostRollup.CAMPAIGN_INDEX.countByValue(ctx.getStub()).toJson(null, null, "byCampaign");
+    }
+
+    /**
+     * Counts all cost transfers per channel, reading only the channel of each stored value.
+     *
+     * @param ctx the transaction context
+     * @return {"total":n,"byChannel":{"channel":n, ...}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountCostTransfersByChannel(final Context ctx) {
+        return GroupCounts.scan(ctx.getStub(), "cost_", "cost_\uFFFF", codec, CHANNEL).toJson(null, null, "byChannel");
+    }
+
+    /**
+     * Returns the key a scan of cost transfers resumes from: the bookmark of the previous call, or the first cost
+     * transfer when it is empty. Bookmarks outside the cost transfer keys are rejected.
+     */
+    private static String resumeKey(final String bookmark) {
+        if (bookmark == null || bookmark.isEmpty()) {
+            return "cost_";
+        }
+        if (!bookmark.startsWith("cost_")) {
+            throw new ChaincodeException(String.format("Bookmark %s is not a cost transfer key", bookmark),
+                    CostTransferErrors.INVALID_BOOKMARK.toString());
+        }
+        return bookmark;
+    }
+
+    /**
+     * Adds cost transfers stored before campaign summaries existed to their campaign's summary. The scan is
+     * bounded to pageSize records per transaction, at most CHAINCODE_BATCH_MAX_SIZE; call again with the returned
+     * bookmark until it comes back empty. Cost transfers that are already counted are skipped, so the backfill can
+     * be repeated safely.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of cost transfers to visit
+     * @param bookmark the key to resume from, or empty to start at the first cost transfer
+     * @return the number of cost transfers added and the bookmark for the next call
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String BackfillCampaignCostSummaries(final Context ctx, final int pageSize, final String bookmark) {
         ChaincodeStub stub = ctx.getStub();
-        List<CampaignTransaction> queryResults = new ArrayList<>();
-        QueryResultsIterator<KeyValue> results = stub.getStateByRange("cost_", "cost_￿");
-        for (KeyValue result : results) {
-            CampaignTransaction costTransfer = genson.deserialize(result.getStringValue(), CampaignTransaction.class);
-            queryResults.add(costTransfer);
+        String startKey = resumeKey(bookmark);
+        int limit = pageSize <= 0 ? ChaincodeConfig.BATCH_MAX_SIZE : Math.min(pageSize, ChaincodeConfig.BATCH_MAX_SIZE);
+        String nextBookmark = "";
+        int visited = 0;
+        int counted = 0;
+
+        // Paginated range queries are rejected in submit transactions, so the page is cut here instead
+        try (QueryResults<KeyValue> results = QueryResults.of(stub.getStateByRange(startKey, "cost_\uFFFF"))) {
+            for (KeyValue result : results) {
+                if (visited == limit) {
+                    nextBookmark = result.getKey();
+                    break;
+                }
+                visited++;
+
+                if (CampaignCostRollup.count(stub, codec.decode(result.getValue()))) {
+                    counted++;
+                }
+            }
         }
-        return genson.serialize(queryResults);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("counted", counted);
+        response.put("bookmark", nextBookmark);
+        return genson.serialize(response);
+    }
+
+    /**
+     * Recomputes a campaign's summary from its cost transfers.
+     *
+     * @param ctx the transaction context
+     * @param campaignId the campaign to rebuild
+     * @return the recomputed campaign totals
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public CampaignCostSummary RebuildCampaignCostSummary(final Context ctx, final String campaignId) {
+        return CampaignCostRollup.rebuild(ctx.getStub(), campaignId);
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllCostTransfers(final Context ctx) {
+        ChaincodeStub stub = ctx.getStub();
+        return JsonResultWriter.writeArray(stub.getStateByRange("cost_", "cost_\uFFFF"), codec);
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllCostTransfersPaged(final Context ctx, final int pageSize, final String bookmark, final int maxBytes) {
+        return QueryPage.range(ctx.getStub(), codec, "cost_", "cost_\uFFFF", pageSize, bookmark, maxBytes);
     }
 }
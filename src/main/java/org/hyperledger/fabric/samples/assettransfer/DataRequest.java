@@ -24,31 +24,31 @@ public final class DataRequest {
     private final String createdOn;
 
     @Property()
-    private String updatedOn;
+    private final String updatedOn;
 
     @Property()
-    private String createdBy;
+    private final String createdBy;
 
     @Property()
     private final String owner;
 
     @Property()
-    private String attributeCodeList;
+    private final String attributeCodeList;
 
     @Property()
-    private String attributeStatusList;
+    private final String attributeStatusList;
 
     @Property()
-    private String approvers;
+    private final String approvers;
 
     @Property()
-    private String campaignId;
+    private final String campaignId;
 
     @Property()
-    private String campaignName;
+    private final String campaignName;
 
     @Property()
-    private String costPerImpression;
+    private final String costPerImpression;
 
     @Property()
     private final Boolean deleted;
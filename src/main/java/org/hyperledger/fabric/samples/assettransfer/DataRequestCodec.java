@@ -0,0 +1,136 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * Ledger encoding of {@link DataRequest}. JSON fields are written in alphabetical order; the compact field order is
+ * part of the stored format: append new fields at the end and never reorder existing ones.
+ */
+final class DataRequestCodec extends LedgerCodec<DataRequest> implements PatchableCodec<DataRequest> {
+
+    static final DataRequestCodec INSTANCE = new DataRequestCodec();
+
+    private DataRequestCodec() {
+        super(512);
+    }
+
+    @Override
+    void writeJson(final CanonicalJson.Writer out, final DataRequest value) {
+        out.field("approvers", value.getApprovers())
+                .field("attributeCodeList", value.getAttributeCodeList())
+                .field("attributeStatusList", value.getAttributeStatusList())
+                .field("campaignId", value.getCampaignId())
+                .field("campaignName", value.getCampaignName())
+                .field("costPerImpression", value.getCostPerImpression())
+                .field("createdBy", value.getCreatedBy())
+                .field("createdOn", value.getCreatedOn())
+                .field("deleted", value.getDeleted())
+                .field("description", value.getDescription())
+                .field("owner", value.getOwner())
+                .field("requestId", value.getRequestId())
+                .field("updatedOn", value.getUpdatedOn());
+    }
+
+    @Override
+    DataRequest readJson(final CanonicalJson.Reader in) {
+        return readJson(in, null);
+    }
+
+    @Override
+    public DataRequest readJson(final CanonicalJson.Reader in, final DataRequest base) {
+        String requestId = base == null ? null : base.getRequestId();
+        String description = base == null ? null : base.getDescription();
+        String createdOn = base == null ? null : base.getCreatedOn();
+        String updatedOn = base == null ? null : base.getUpdatedOn();
+        String createdBy = base == null ? null : base.getCreatedBy();
+        String owner = base == null ? null : base.getOwner();
+        String attributeCodeList = base == null ? null : base.getAttributeCodeList();
+        String attributeStatusList = base == null ? null : base.getAttributeStatusList();
+        String approvers = base == null ? null : base.getApprovers();
+        String campaignId = base == null ? null : base.getCampaignId();
+        String campaignName = base == null ? null : base.getCampaignName();
+        String costPerImpression = base == null ? null : base.getCostPerImpression();
+        Boolean deleted = base == null ? null : base.getDeleted();
+
+        in.beginObject();
+        while (in.hasNextField()) {
+            switch (in.nextName()) {
+                case "requestId":
+                    requestId = in.readString();
+                    break;
+                case "description":
+                    description = in.readString();
+                    break;
+                case "createdOn":
+                    createdOn = in.readString();
+                    break;
+                case "updatedOn":
+                    updatedOn = in.readString();
+                    break;
+                case "createdBy":
+                    createdBy = in.readString();
+                    break;
+                case "owner":
+                    owner = in.readString();
+                    break;
+                case "attributeCodeList":
+                    attributeCodeList = in.readString();
+                    break;
+                case "attributeStatusList":
+                    attributeStatusList = in.readString();
+                    break;
+                case "approvers":
+                    approvers = in.readString();
+                    break;
+                case "campaignId":
+                    campaignId = in.readString();
+                    break;
+                case "campaignName":
+                    campaignName = in.readString();
+                    break;
+                case "costPerImpression":
+                    costPerImpression = in.readString();
+                    break;
+                case "deleted":
+                    deleted = in.readBoolean();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+
+        return new DataRequest(requestId, description, createdOn, updatedOn, createdBy, owner, attributeCodeList,
+                attributeStatusList, approvers, campaignId, campaignName, costPerImpression, deleted);
+    }
+
+    @Override
+    int fieldCount() {
+        return 13;
+    }
+
+    @Override
+    void writeFields(final CompactWriter out, final DataRequest value) {
+        out.writeString(value.getRequestId());
+        out.writeString(value.getDescription());
+        out.writeString(value.getCreatedOn());
+        out.writeString(value.getUpdatedOn());
+        out.writeString(value.getCreatedBy());
+        out.writeString(value.getOwner());
+        out.writeString(value.getAttributeCodeList());
+        out.writeString(value.getAttributeStatusList());
+        out.writeString(value.getApprovers());
+        out.writeString(value.getCampaignId());
+        out.writeString(value.getCampaignName());
+        out.writeString(value.getCostPerImpression());
+        out.writeBoolean(value.getDeleted());
+    }
+
+    @Override
+    DataRequest readFields(final CompactReader in) {
+        return new DataRequest(in.readString(), in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readString(), in.readString(), in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readString(), in.readBoolean());
+    }
+}
@@ -4,11 +4,12 @@
 
 package org.hyperledger.fabric.samples.assettransfer;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.logging.Level;
 
 
 import org.hyperledger.fabric.contract.Context;
-import org.hyperledger.fabric.contract.ContractInterface;
 import org.hyperledger.fabric.contract.annotation.Contact;
 import org.hyperledger.fabric.contract.annotation.Contract;
 import org.hyperledger.fabric.contract.annotation.Default;
@@ -18,7 +19,6 @@ import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
-import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
 
 import com.owlike.genson.Genson;
 
@@ -36,13 +36,41 @@ import com.owlike.genson.Genson;
                         name = "Data Transfer",
                         url = "https://hyperledger.example.com")))
 @Default
-public final class DataTransferRequest implements ContractInterface {
+public final class DataTransferRequest implements TransactionContextContract {
 
     private final Genson genson = new Genson();
 
+    private static final RateLimitedLogger KEY_LOG = ContractLogging.getRateLimitedLogger(DataTransferRequest.class);
+
+    private final DataRequestCodec codec = DataRequestCodec.INSTANCE;
+
+    /**
+     * Maps a campaignId to the keys of its non-deleted data requests.
+     */
+    private static final CompositeIndex<DataRequest> CAMPAIGN_INDEX = new CompositeIndex<>("campaign~request",
+            dataRequest -> Boolean.TRUE.equals(dataRequest.getDeleted()) ? null : dataRequest.getCampaignId(),
+            DataRequest::getRequestId);
+
+    private static final TimeIndex<DataRequest> CREATED_INDEX = new TimeIndex<>("createdon_request_",
+            dataRequest -> Boolean.TRUE.equals(dataRequest.getDeleted()) ? null : dataRequest.getCreatedOn(),
+            DataRequest::getRequestId);
+
+    private static final TimeIndex<DataRequest> UPDATED_INDEX = new TimeIndex<>("updatedon_request_",
+            dataRequest -> Boolean.TRUE.equals(dataRequest.getDeleted()) ? null : dataRequest.getUpdatedOn(),
+            DataRequest::getRequestId);
+
+    private static final FieldExtractor DELETED = new FieldExtractor("deleted");
+
     private enum DataTransferErrors {
         DATA_NOT_FOUND,
-        DATA_ALREADY_EXISTS
+        DATA_ALREADY_EXISTS,
+        INVALID_BATCH,
+        INVALID_PATCH,
+        INVALID_APPROVAL,
+        NOT_AN_APPROVER,
+        INVALID_TIME_RANGE,
+        INVALID_ASSET_TYPE,
+        INVALID_BOOKMARK
     }
 
     /**
@@ -73,21 +101,137 @@ public final class DataTransferRequest implements ContractInterface {
 
         if (DataRequestExists(ctx, requestId)) {
             String errorMessage = String.format("Asset %s already exists", requestId);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, DataTransferErrors.DATA_ALREADY_EXISTS.toString());
         }
 
-        return putAsset(ctx, new DataRequest("data_" + requestId, description, createdOn, updatedOn, createdBy, owner, attributeCodeList, attributeStatusList, approvers, campaignId, campaignName, costPerImpression, deleted));
+        return putAsset(ctx, null, checkApprovals(new DataRequest(addDataPrefixIfNotPresent(requestId), description, createdOn, updatedOn, createdBy, owner, attributeCodeList, attributeStatusList, approvers, campaignId, campaignName, costPerImpression, deleted)));
+    }
+
+    /**
+     * Creates many assets in one transaction. Items without a requestId, or whose requestId is repeated in the
+     * batch or already on the ledger, are rejected and reported; the other items are written.
+     *
+     * @param ctx the transaction context
+     * @param dataRequestsJson a JSON array of assets, in the same shape as returned by FindByRequestId
+     * @return the ids that were created and the errors of the rejected items
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CreateDataRequestsBatch(final Context ctx, final String dataRequestsJson) {
+        DataRequest[] dataRequests = parseBatch(dataRequestsJson);
+        BatchResult result = new BatchResult();
+
+        for (int i = 0; i < dataRequests.length; i++) {
+            DataRequest item = dataRequests[i];
+            String requestId = item == null ? null : item.getRequestId();
+
+            if (requestId == null || requestId.isEmpty()) {
+                result.rejected(i, requestId, "requestId is required");
+                continue;
+            }
+
+            String key = addDataPrefixIfNotPresent(requestId);
+            if (!result.claim(key)) {
+                result.rejected(i, requestId, "Duplicate requestId in batch");
+                continue;
+            }
+            if (DataRequestExists(ctx, key)) {
+                result.rejected(i, requestId, String.format("Asset %s already exists", requestId));
+                continue;
+            }
+
+            try {
+                AttributeApprovals.of(item);
+            } catch (IllegalArgumentException e) {
+                result.rejected(i, requestId, e.getMessage());
+                continue;
+            }
+
+            putAsset(ctx, null, new DataRequest(key, item.getDescription(), item.getCreatedOn(), item.getUpdatedOn(),
+                    item.getCreatedBy(), item.getOwner(), item.getAttributeCodeList(), item.getAttributeStatusList(),
+                    item.getApprovers(), item.getCampaignId(), item.getCampaignName(), item.getCostPerImpression(),
+                    item.getDeleted()));
+            result.created(requestId);
+        }
+
+        return result.toJson(genson);
+    }
+
+    private DataRequest[] parseBatch(final String dataRequestsJson) {
+        DataRequest[] dataRequests;
+        try {
+            dataRequests = codec.decodeJsonArray(dataRequestsJson).toArray(new DataRequest[0]);
+        } catch (RuntimeException e) {
+            throw new ChaincodeException("Batch is not a JSON array of data requests: " + e.getMessage(),
+                    DataTransferErrors.INVALID_BATCH.toString());
+        }
+
+        if (dataRequests == null || dataRequests.length == 0) {
+            throw new ChaincodeException("Batch is empty", DataTransferErrors.INVALID_BATCH.toString());
+        }
+        if (dataRequests.length > ChaincodeConfig.BATCH_MAX_SIZE) {
+            String errorMessage = String.format("Batch of %d data requests exceeds the maximum of %d",
+                    dataRequests.length, ChaincodeConfig.BATCH_MAX_SIZE);
+            throw new ChaincodeException(errorMessage, DataTransferErrors.INVALID_BATCH.toString());
+        }
+
+        return dataRequests;
     }
 
-    private DataRequest putAsset(final Context ctx, final DataRequest dataRequest) {
-        // Use Genson to convert the Asset into string, sort it alphabetically and serialize it into a json string
-        String sortedJson = genson.serialize(dataRequest);
-        ctx.getStub().putStringState(dataRequest.getRequestId(), sortedJson);
+    private DataRequest putAsset(final Context ctx, final DataRequest previous, final DataRequest dataRequest) {
+        byte[] value = codec.encode(dataRequest);
+        ctx.getStub().putState(dataRequest.getRequestId(), value);
+        ChangeFeed.record(ctx, ChangeFeed.DATA_REQUEST, dataRequest.getRequestId(), ChangeFeed.PUT);
+        AssetEvents.record(ctx, ChangeFeed.DATA_REQUEST, previous == null ? AssetEvents.CREATE : AssetEvents.UPDATE,
+                dataRequest.getRequestId(), codec.toJson(value));
+        CAMPAIGN_INDEX.update(ctx.getStub(), previous, dataRequest);
+        CREATED_INDEX.update(ctx.getStub(), previous, dataRequest);
+        UPDATED_INDEX.update(ctx.getStub(), previous, dataRequest);
+        ApprovalWorkflow.update(ctx.getStub(), previous, dataRequest);
 
         return dataRequest;
     }
 
+    /**
+     * Deletes a data request from world state along with its index entries.
+     *
+     * @param op the {@link AssetEvents} operation to report
+     * @param record the JSON form of the record to report with it, or null for none
+     */
+    private void removeAsset(final Context ctx, final DataRequest previous, final String op, final byte[] record) {
+        ctx.getStub().delState(previous.getRequestId());
+        ChangeFeed.record(ctx, ChangeFeed.DATA_REQUEST, previous.getRequestId(), ChangeFeed.DELETE);
+        AssetEvents.record(ctx, ChangeFeed.DATA_REQUEST, op, previous.getRequestId(), record);
+        CAMPAIGN_INDEX.update(ctx.getStub(), previous, null);
+        CREATED_INDEX.update(ctx.getStub(), previous, null);
+        UPDATED_INDEX.update(ctx.getStub(), previous, null);
+        ApprovalWorkflow.update(ctx.getStub(), previous, null);
+    }
+
+    /**
+     * Rejects a data request whose attribute statuses are not valid {@link DataRequest.Status} names or do not match
+     * its attributes one to one.
+     */
+    private static DataRequest checkApprovals(final DataRequest dataRequest) {
+        try {
+            AttributeApprovals.of(dataRequest);
+        } catch (IllegalArgumentException e) {
+            throw new ChaincodeException(String.format("Invalid attribute statuses for %s: %s",
+                    dataRequest.getRequestId(), e.getMessage()), DataTransferErrors.INVALID_APPROVAL.toString());
+        }
+        return dataRequest;
+    }
+
+    private DataRequest readAsset(final Context ctx, final String key) {
+        byte[] asset = ctx.getStub().getState(key);
+
+        if (asset == null || asset.length == 0) {
+            return null;
+        }
+
+        return DecodeCache.INSTANCE.decode(codec, asset);
+    }
+
     /**
      * Retrieves an asset with the specified ID from the ledger.
      *
@@ -97,40 +241,113 @@ public final class DataTransferRequest implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public DataRequest FindByRequestId(final Context ctx, final String requestId) {
-        String assetJSON = ctx.getStub().getStringState("data_" + requestId);
+        DataRequest asset = readAsset(ctx, "data_" + requestId);
 
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        if (asset == null) {
             String errorMessage = String.format("DataRequest %s does not exist", requestId);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, DataTransferErrors.DATA_NOT_FOUND.toString());
         }
 
-        return genson.deserialize(assetJSON, DataRequest.class);
+        return asset;
     }
 
+    /**
+     * Retrieves several data requests in one call.
+     *
+     * @param ctx the transaction context
+     * @param requestIdsJson a JSON array of request ids, with or without the data_ prefix
+     * @return the data requests found and the ids that were not, as {"records":[...],"missing":[...]}
+     */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String FindByCampaignId(final Context ctx, final String campaignId) {
-        List<DataRequest> matchingAssets = new ArrayList<>();
-
-        // Use getStateByRange to iterate over all assets and filter by campaignId
-        QueryResultsIterator<KeyValue> results = ctx.getStub().getStateByRange("data_", "data_\uFFFF");
+    public String FindByRequestIds(final Context ctx, final String requestIdsJson) {
+        List<String> requestIds;
+        try {
+            requestIds = MultiGet.parseIds(requestIdsJson);
+        } catch (IllegalArgumentException e) {
+            throw new ChaincodeException(e.getMessage(), DataTransferErrors.INVALID_BATCH.toString());
+        }
 
-        for (KeyValue result : results) {
-            DataRequest asset = genson.deserialize(result.getStringValue(), DataRequest.class);
+        return MultiGet.read(ctx.getStub(), codec, requestIds, DataTransferRequest::addDataPrefixIfNotPresent);
+    }
 
-            // Check if the asset is not deleted and if the campaignId matches
-            if (!Boolean.TRUE.equals(asset.getDeleted()) && asset.getCampaignId().equals(campaignId)) {
-                matchingAssets.add(asset);
+    /**
+     * Retrieves the non-deleted data requests of a campaign through the campaign index, so only matching
+     * records are read from the ledger.
+     *
+     * @param ctx the transaction context
+     * @param campaignId the campaign to look up
+     * @return array of matching assets
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindByCampaignId(final Context ctx, final String campaignId) {
+        ChaincodeStub stub = ctx.getStub();
+        JsonResultWriter matchingAssets = new JsonResultWriter().beginArray();
+
+        // The index only holds non-deleted records, so the stored values are copied through without decoding them
+        try (QueryResults<KeyValue> indexEntries = QueryResults.of(CAMPAIGN_INDEX.entries(stub, campaignId))) {
+            for (KeyValue indexEntry : indexEntries) {
+                byte[] asset = stub.getState(CompositeIndex.recordKey(stub, indexEntry));
+                if (asset != null && asset.length > 0) {
+                    matchingAssets.value(codec.toJson(asset));
+                }
             }
         }
 
-        if (matchingAssets.isEmpty()) {
+        if (matchingAssets.elementCount() == 0) {
             String errorMessage = String.format("No non-deleted assets found for Campaign ID %s", campaignId);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, DataTransferErrors.DATA_NOT_FOUND.toString());
         }
 
-        return genson.serialize(matchingAssets);
+        return matchingAssets.endArray().toString();
+    }
+
+    /**
+     * Counts the non-deleted data requests of a campaign from the campaign index alone, without reading them.
+     *
+     * @param ctx the transaction context
+     * @param campaignId the campaign to look up
+     * @return {"campaignId":...,"total":n}, with a total of 0 if the campaign has no data requests
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountDataRequestsByCampaign(final Context ctx, final String campaignId) {
+        return new JsonResultWriter()
+                .raw("{\"campaignId\":").string(campaignId)
+                .raw(",\"total\":").number(CAMPAIGN_INDEX.count(ctx.getStub(), campaignId))
+                .raw("}").toString();
+    }
+
+    /**
+     * Counts the non-deleted data requests of every campaign in one pass over the campaign index.
+     *
+     * @param ctx the transaction context
+     * @return {"total":n,"byCampaign":{"campaignId":n, ...}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountDataRequestsPerCampaign(final Context ctx) {
+        return CAMPAIGN_INDEX.countByValue(ctx.getStub()).toJson(null, null, "byCampaign");
+    }
+
+    /**
+     * Counts all data requests, deleted or not, reading only the deleted flag of each stored value.
+     *
+     * @param ctx the transaction context
+     * @return {"total":n,"byState":{"active":n,"deleted":n}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountDataRequests(final Context ctx) {
+        GroupCounts counts = new GroupCounts();
+        counts.add("active", 0);
+        counts.add("deleted", 0);
+
+        try (QueryResults<KeyValue> results = QueryResults.of(ctx.getStub().getStateByRange("data_", "data_\uFFFF"))) {
+            for (KeyValue result : results) {
+                counts.add(Boolean.parseBoolean(DELETED.extractFirst(codec, result.getValue())) ? "deleted" : "active");
+            }
+        }
+
+        return counts.toJson(null, null, "byState");
     }
 
     /**
@@ -150,13 +367,55 @@ public final class DataTransferRequest implements ContractInterface {
                                          final String owner, String attributeCodeList, String attributeStatusList, String approvers,
                                          String campaignId, String campaignName, String costPerImpression, final Boolean deleted) {
 
-        if (!DataRequestExists(ctx, requestId)) {
+        DataRequest previous = readAsset(ctx, addDataPrefixIfNotPresent(requestId));
+
+        if (previous == null) {
+            String errorMessage = String.format("Asset %s does not exist", requestId);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
+            throw new ChaincodeException(errorMessage, DataTransferErrors.DATA_NOT_FOUND.toString());
+        }
+
+        return putAsset(ctx, previous, checkApprovals(new DataRequest(addDataPrefixIfNotPresent(requestId), description, createdOn, updatedOn, createdBy, owner, attributeCodeList, attributeStatusList, approvers, campaignId, campaignName, costPerImpression, deleted)));
+    }
+
+    /**
+     * Changes some properties of an asset without resending the others. The patch is a JSON object holding only the
+     * properties to change, e.g. {@code {"attributeStatusList":"approved,pending"}}; a property set to null is
+     * cleared. Nothing is written when the patch leaves the asset as it was.
+     *
+     * @param ctx the transaction context
+     * @param requestId the ID of the asset being patched
+     * @param patchJson the properties to change
+     * @return the asset after the patch
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public DataRequest PatchDataRequest(final Context ctx, final String requestId, final String patchJson) {
+        String key = addDataPrefixIfNotPresent(requestId);
+        DataRequest previous = readAsset(ctx, key);
+
+        if (previous == null) {
             String errorMessage = String.format("Asset %s does not exist", requestId);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, DataTransferErrors.DATA_NOT_FOUND.toString());
         }
 
-        return putAsset(ctx, new DataRequest("data_" + requestId, description, createdOn, updatedOn, createdBy, owner, attributeCodeList, attributeStatusList, approvers, campaignId, campaignName, costPerImpression, deleted));
+        DataRequest patched;
+        try {
+            patched = codec.merge(previous, patchJson);
+        } catch (RuntimeException e) {
+            throw new ChaincodeException("Patch is not a JSON object of data request fields: " + e.getMessage(),
+                    DataTransferErrors.INVALID_PATCH.toString());
+        }
+
+        if (!key.equals(patched.getRequestId())) {
+            throw new ChaincodeException("The requestId of an asset cannot be patched",
+                    DataTransferErrors.INVALID_PATCH.toString());
+        }
+        if (patched.equals(previous)) {
+            return previous;
+        }
+
+        return putAsset(ctx, previous, checkApprovals(patched));
     }
 
     /**
@@ -167,13 +426,258 @@ public final class DataTransferRequest implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteDataRequest(final Context ctx, final String requestId) {
-        if (!DataRequestExists(ctx, requestId)) {
+        DataRequest previous = readAsset(ctx, addDataPrefixIfNotPresent(requestId));
+
+        if (previous == null) {
+            String errorMessage = String.format("Asset %s does not exist", requestId);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
+            throw new ChaincodeException(errorMessage, DataTransferErrors.DATA_NOT_FOUND.toString());
+        }
+
+        removeAsset(ctx, previous, AssetEvents.DELETE, null);
+    }
+
+    /**
+     * Removes soft-deleted data requests from world state, together with any index entries left pointing at them.
+     * The scan is bounded to pageSize records per transaction, at most CHAINCODE_BATCH_MAX_SIZE; call again with
+     * the returned bookmark until it comes back empty.
+     *
+     * <p>Each purged record is reported in the {@link AssetEvents} event of the transaction as a {@code purge}
+     * change carrying the record, so that an off-chain archive can keep a copy.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of data requests to visit
+     * @param bookmark the key to resume from, or empty to start at the first data request
+     * @return the number of data requests purged and the bookmark for the next call
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String PurgeDeletedDataRequests(final Context ctx, final int pageSize, final String bookmark) {
+        ChaincodeStub stub = ctx.getStub();
+        String startKey = resumeKey(bookmark);
+        int limit = pageSize <= 0 ? ChaincodeConfig.BATCH_MAX_SIZE : Math.min(pageSize, ChaincodeConfig.BATCH_MAX_SIZE);
+        String nextBookmark = "";
+        int visited = 0;
+        int purged = 0;
+
+        // Paginated range queries are rejected in submit transactions, so the page is cut here instead
+        try (QueryResults<KeyValue> results = QueryResults.of(stub.getStateByRange(startKey, "data_\uFFFF"))) {
+            for (KeyValue result : results) {
+                if (visited == limit) {
+                    nextBookmark = result.getKey();
+                    break;
+                }
+                visited++;
+
+                if (!Boolean.parseBoolean(DELETED.extractFirst(codec, result.getValue()))) {
+                    continue;
+                }
+                removeAsset(ctx, codec.decode(result.getValue()), AssetEvents.PURGE, codec.toJson(result.getValue()));
+                purged++;
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("purged", purged);
+        response.put("bookmark", nextBookmark);
+        return genson.serialize(response);
+    }
+
+    /**
+     * Approves a pending attribute of an asset on behalf of one of its approvers.
+     *
+     * @param ctx the transaction context
+     * @param requestId the ID of the asset
+     * @param attributeCode the attribute being approved
+     * @param approver the approver deciding, who must be listed in the asset's approvers
+     * @return the asset after the decision
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public DataRequest ApproveAttribute(final Context ctx, final String requestId, final String attributeCode,
+                                        final String approver) {
+        return decide(ctx, requestId, attributeCode, approver, DataRequest.Status.approved);
+    }
+
+    /**
+     * Rejects a pending attribute of an asset on behalf of one of its approvers.
+     *
+     * @param ctx the transaction context
+     * @param requestId the ID of the asset
+     * @param attributeCode the attribute being rejected
+     * @param approver the approver deciding, who must be listed in the asset's approvers
+     * @return the asset after the decision
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public DataRequest RejectAttribute(final Context ctx, final String requestId, final String attributeCode,
+                                       final String approver) {
+        return decide(ctx, requestId, attributeCode, approver, DataRequest.Status.rejected);
+    }
+
+    private DataRequest decide(final Context ctx, final String requestId, final String attributeCode,
+                               final String approver, final DataRequest.Status decision) {
+        DataRequest previous = readAsset(ctx, addDataPrefixIfNotPresent(requestId));
+
+        if (previous == null || Boolean.TRUE.equals(previous.getDeleted())) {
             String errorMessage = String.format("Asset %s does not exist", requestId);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, DataTransferErrors.DATA_NOT_FOUND.toString());
         }
 
-        ctx.getStub().delState(requestId);
+        AttributeApprovals approvals;
+        try {
+            approvals = AttributeApprovals.of(previous);
+            if (!approvals.isApprover(approver)) {
+                String errorMessage = String.format("%s is not an approver of %s", approver, requestId);
+                throw new ChaincodeException(errorMessage, DataTransferErrors.NOT_AN_APPROVER.toString());
+            }
+            approvals = approvals.decide(attributeCode, decision);
+        } catch (IllegalArgumentException e) {
+            String errorMessage = String.format("Cannot %s %s of %s: %s",
+                    decision == DataRequest.Status.approved ? "approve" : "reject", attributeCode, requestId,
+                    e.getMessage());
+            throw new ChaincodeException(errorMessage, DataTransferErrors.INVALID_APPROVAL.toString());
+        }
+
+        return putAsset(ctx, previous, approvals.applyTo(previous, ctx.getStub().getTxTimestamp().toString()));
+    }
+
+    /**
+     * Retrieves one page of the assets that have attributes waiting for an approver.
+     *
+     * @param ctx the transaction context
+     * @param approver the approver to look up
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned by the previous page, or empty for the first page
+     * @param maxBytes the maximum size of the returned records in bytes
+     * @return the assets of the page, the bookmark of the next page and the number of assets returned
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetPendingForApprover(final Context ctx, final String approver, final int pageSize,
+                                        final String bookmark, final int maxBytes) {
+        return QueryPage.index(ctx.getStub(), codec, ApprovalWorkflow.PENDING_OBJECT_TYPE, approver, pageSize,
+                bookmark, maxBytes);
+    }
+
+    /**
+     * Gives the attributes that are still pending past their deadline the configured deemed status, visiting at
+     * most maxRequests assets per transaction, oldest deadline first, and at most CHAINCODE_BATCH_MAX_SIZE. Call
+     * again while it reports a full chunk.
+     *
+     * @param ctx the transaction context
+     * @param maxRequests the maximum number of assets to expire
+     * @return the number of assets and attributes that expired
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String ExpirePendingApprovals(final Context ctx, final int maxRequests) {
+        ChaincodeStub stub = ctx.getStub();
+        Instant now = stub.getTxTimestamp();
+        int limit = maxRequests <= 0 ? ChaincodeConfig.BATCH_MAX_SIZE
+                : Math.min(maxRequests, ChaincodeConfig.BATCH_MAX_SIZE);
+        int requests = 0;
+        int attributes = 0;
+
+        for (String dueKey : ApprovalWorkflow.due(stub, now, limit)) {
+            // Removed up front so that an entry left behind by a changed timeout cannot be visited again
+            stub.delState(dueKey);
+
+            DataRequest previous = readAsset(ctx, ApprovalWorkflow.requestKey(dueKey));
+            if (previous == null) {
+                continue;
+            }
+
+            AttributeApprovals approvals = AttributeApprovals.of(previous);
+            if (!approvals.hasPending()) {
+                continue;
+            }
+            attributes += approvals.pendingCount();
+            putAsset(ctx, previous, approvals.expire(ApprovalWorkflow.EXPIRED_STATUS).applyTo(previous, now.toString()));
+            requests++;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("requests", requests);
+        response.put("attributes", attributes);
+        return genson.serialize(response);
+    }
+
+    /**
+     * Retrieves the per-function latency, world state call and payload histograms this chaincode process has
+     * recorded since it started. The figures are local to the peer that evaluates the transaction.
+     *
+     * @param ctx the transaction context
+     * @return the metrics as a JSON object keyed by function name
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetChaincodeMetrics(final Context ctx) {
+        return ChaincodeMetrics.toJson();
+    }
+
+    /**
+     * Retrieves the writes made to an asset type after a position, so that an off-chain copy can catch up without
+     * re-reading every asset. Each change is {@code {"key":...,"op":"put"|"delete","position":...}}; read the current
+     * value of put keys to apply them. Pass the returned position to the next call. Changes are ordered by the time
+     * their transaction was proposed, so a change can appear behind a position already returned; to see every change,
+     * resume from a time shortly before the last position instead and skip positions already applied. If
+     * resyncRequired is true, changes after the given position have been compacted away and the copy must be rebuilt
+     * from the GetAll queries.
+     *
+     * @param ctx the transaction context
+     * @param assetType dataRequest, notification or costTransfer
+     * @param position the last position already applied, a time to start from as an ISO-8601 timestamp or epoch
+     *                 milliseconds, or empty to start from the oldest change kept, which never requires a resync
+     * @param limit the maximum number of changes to return
+     * @return the changes, the position to resume from and whether a full resync is needed
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetChangesSince(final Context ctx, final String assetType, final String position, final int limit) {
+        checkAssetType(assetType);
+        int maxChanges = limit <= 0 ? QueryPage.DEFAULT_PAGE_SIZE : Math.min(limit, QueryPage.MAX_PAGE_SIZE);
+        return ChangeFeed.changesSince(ctx.getStub(), assetType, position, maxChanges);
+    }
+
+    /**
+     * Deletes change feed entries of an asset type recorded before a retention watermark, at most maxEntries per
+     * transaction and at most CHAINCODE_BATCH_MAX_SIZE; call again until it deletes nothing. Consumers positioned
+     * below the last entry deleted are told to resync by GetChangesSince.
+     *
+     * @param ctx the transaction context
+     * @param assetType dataRequest, notification or costTransfer
+     * @param watermark the time before which entries may be deleted, as an ISO-8601 timestamp or epoch milliseconds
+     * @param maxEntries the maximum number of entries to delete
+     * @return the number of entries deleted
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CompactChanges(final Context ctx, final String assetType, final String watermark, final int maxEntries) {
+        checkAssetType(assetType);
+        Instant before = TimeIndex.parse(watermark);
+        if (before == null) {
+            throw new ChaincodeException(String.format("Watermark %s is not an ISO-8601 timestamp or epoch milliseconds",
+                    watermark), DataTransferErrors.INVALID_TIME_RANGE.toString());
+        }
+        int limit = maxEntries <= 0 ? ChaincodeConfig.BATCH_MAX_SIZE : Math.min(maxEntries, ChaincodeConfig.BATCH_MAX_SIZE);
+        int deleted = ChangeFeed.compact(ctx.getStub(), assetType, before, limit);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("deleted", deleted);
+        return genson.serialize(response);
+    }
+
+    private static void checkAssetType(final String assetType) {
+        if (!ChangeFeed.ASSET_TYPES.contains(assetType)) {
+            throw new ChaincodeException(String.format("Unknown asset type %s, expected one of %s", assetType,
+                    ChangeFeed.ASSET_TYPES), DataTransferErrors.INVALID_ASSET_TYPE.toString());
+        }
+    }
+
+    /**
+     * Returns the size, hit ratio and evictions of the decoded record cache of the chaincode process answering the
+     * query. Like the metrics, the figures are local to one peer.
+     *
+     * @param ctx the transaction context
+     * @return the cache counters as a JSON object
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetDecodeCacheStats(final Context ctx) {
+        return DecodeCache.INSTANCE.toJson();
     }
 
     /**
@@ -198,13 +702,68 @@ public final class DataTransferRequest implements ContractInterface {
     }
 
     /**
-     * Changes the owner of a asset on the ledger.
+     * Returns the key a scan of data requests resumes from: the bookmark of the previous call, or the first data
+     * request when it is empty. Bookmarks outside the data request keys are rejected, so that a scan cannot be
+     * pointed at other records.
+     */
+    private static String resumeKey(final String bookmark) {
+        if (bookmark == null || bookmark.isEmpty()) {
+            return "data_";
+        }
+        if (!bookmark.startsWith("data_")) {
+            throw new ChaincodeException(String.format("Bookmark %s is not a data request key", bookmark),
+                    DataTransferErrors.INVALID_BOOKMARK.toString());
+        }
+        return bookmark;
+    }
+
+    /**
+     * Writes campaign, time and approval index entries for data requests stored before the indexes existed. The
+     * scan is bounded to pageSize records per transaction, at most CHAINCODE_BATCH_MAX_SIZE; call again with the
+     * returned bookmark until it comes back empty.
      *
      * @param ctx the transaction context
-     * @param requestId the ID of the asset being transferred
-     * @param newOwner the new owner
-     * @return the old owner
+     * @param pageSize the maximum number of data requests to visit
+     * @param bookmark the key to resume from, or empty to start at the first data request
+     * @return the number of entries written and the bookmark for the next call
      */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String BackfillCampaignIndex(final Context ctx, final int pageSize, final String bookmark) {
+        ChaincodeStub stub = ctx.getStub();
+        String startKey = resumeKey(bookmark);
+        int limit = pageSize <= 0 ? ChaincodeConfig.BATCH_MAX_SIZE : Math.min(pageSize, ChaincodeConfig.BATCH_MAX_SIZE);
+        String nextBookmark = "";
+        int visited = 0;
+        int indexed = 0;
+
+        // Paginated range queries are rejected in submit transactions, so the page is cut here instead
+        try (QueryResults<KeyValue> results = QueryResults.of(stub.getStateByRange(startKey, "data_\uFFFF"))) {
+            for (KeyValue result : results) {
+                if (visited == limit) {
+                    nextBookmark = result.getKey();
+                    break;
+                }
+                visited++;
+
+                // Deleted requests have neither campaign nor approval entries, so they are not decoded at all
+                if (Boolean.parseBoolean(DELETED.extractFirst(codec, result.getValue()))) {
+                    continue;
+                }
+                DataRequest dataRequest = codec.decode(result.getValue());
+                if (CAMPAIGN_INDEX.put(stub, dataRequest)) {
+                    indexed++;
+                }
+                CREATED_INDEX.put(stub, dataRequest);
+                UPDATED_INDEX.put(stub, dataRequest);
+                ApprovalWorkflow.put(stub, dataRequest);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("indexed", indexed);
+        response.put("bookmark", nextBookmark);
+        return genson.serialize(response);
+    }
 
     /**
      * Retrieves all assets from the ledger.
@@ -216,20 +775,88 @@ public final class DataTransferRequest implements ContractInterface {
     public String GetAllDataRequests(final Context ctx) {
         ChaincodeStub stub = ctx.getStub();
 
-        List<DataRequest> queryResults = new ArrayList<>();
-
         // To retrieve all assets from the ledger use getStateByRange with empty startKey & endKey.
         // Giving empty startKey & endKey is interpreted as all the keys from beginning to end.
         // As another example, if you use startKey = 'asset0', endKey = 'asset9' ,
         // then getStateByRange will retrieve asset with keys between asset0 (inclusive) and asset9 (exclusive) in lexical order.
-        QueryResultsIterator<KeyValue> results = stub.getStateByRange("data_", "data_\uFFFF");
+        return JsonResultWriter.writeArray(stub.getStateByRange("data_", "data_\uFFFF"), codec);
+    }
+
+    /**
+     * Retrieves one page of assets from the ledger.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned by the previous page, or empty for the first page
+     * @param maxBytes the maximum size of the returned records in bytes
+     * @return the assets of the page, the bookmark of the next page and the number of assets returned
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllDataRequestsPaged(final Context ctx, final int pageSize, final String bookmark, final int maxBytes) {
+        return QueryPage.range(ctx.getStub(), codec, "data_", "data_\uFFFF", pageSize, bookmark, maxBytes);
+    }
+
+    /**
+     * Retrieves one page of the non-deleted assets of a campaign.
+     *
+     * @param ctx the transaction context
+     * @param campaignId the campaign to look up
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned by the previous page, or empty for the first page
+     * @param maxBytes the maximum size of the returned records in bytes
+     * @return the assets of the page, the bookmark of the next page and the number of assets returned
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindByCampaignIdPaged(final Context ctx, final String campaignId, final int pageSize,
+                                        final String bookmark, final int maxBytes) {
+        return QueryPage.index(ctx.getStub(), codec, CAMPAIGN_INDEX, campaignId, pageSize, bookmark, maxBytes);
+    }
+
+    /**
+     * Retrieves one page of the non-deleted data requests whose createdOn lies between from (inclusive) and to
+     * (exclusive), oldest first. Only the index entries inside the window are read.
+     *
+     * @param ctx the transaction context
+     * @param from the start of the window, as an ISO-8601 timestamp or epoch milliseconds
+     * @param to the end of the window, in the same forms
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned by the previous page, or empty for the first page
+     * @param maxBytes the maximum size of the returned records in bytes
+     * @return the assets of the page, the bookmark of the next page and the number of assets returned
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindDataRequestsCreatedBetween(final Context ctx, final String from, final String to,
+                                                 final int pageSize, final String bookmark, final int maxBytes) {
+        return findBetween(ctx, CREATED_INDEX, from, to, pageSize, bookmark, maxBytes);
+    }
+
+    /**
+     * Retrieves one page of the non-deleted data requests whose updatedOn lies between from (inclusive) and to
+     * (exclusive), oldest first; see FindDataRequestsCreatedBetween.
+     *
+     * @param ctx the transaction context
+     * @param from the start of the window, as an ISO-8601 timestamp or epoch milliseconds
+     * @param to the end of the window, in the same forms
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned by the previous page, or empty for the first page
+     * @param maxBytes the maximum size of the returned records in bytes
+     * @return the assets of the page, the bookmark of the next page and the number of assets returned
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindDataRequestsUpdatedBetween(final Context ctx, final String from, final String to,
+                                                 final int pageSize, final String bookmark, final int maxBytes) {
+        return findBetween(ctx, UPDATED_INDEX, from, to, pageSize, bookmark, maxBytes);
+    }
 
-        for (KeyValue result: results) {
-            DataRequest dataRequest = genson.deserialize(result.getStringValue(), DataRequest.class);
-            System.out.println(dataRequest);
-            queryResults.add(dataRequest);
+    private String findBetween(final Context ctx, final TimeIndex<DataRequest> index, final String from,
+                               final String to, final int pageSize, final String bookmark, final int maxBytes) {
+        Instant start = TimeIndex.parse(from);
+        Instant end = TimeIndex.parse(to);
+        if (start == null || end == null || start.isAfter(end)) {
+            throw new ChaincodeException(String.format("Invalid time window %s to %s", from, to),
+                    DataTransferErrors.INVALID_TIME_RANGE.toString());
         }
 
-        return genson.serialize(queryResults);
+        return QueryPage.timeRange(ctx.getStub(), codec, index, start, end, pageSize, bookmark, maxBytes);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A least recently used cache of decoded world state values, shared by all transactions of the process and keyed
+ * by the SHA-256 digest of the value bytes. A popular record read over and over is then decoded once per version:
+ * the state read itself still happens and lands in the read set, only the decode is skipped.
+ *
+ * <p>Cached instances are handed to every transaction that reads the same bytes, so only immutable types may be
+ * decoded through this cache. The cache is bounded by an estimate of its memory use,
+ * {@code CHAINCODE_DECODE_CACHE_BYTES}; 0 disables it.
+ */
+final class DecodeCache {
+
+    static final DecodeCache INSTANCE = new DecodeCache(ChaincodeConfig.DECODE_CACHE_BYTES);
+
+    /**
+     * Estimated size of an entry besides its value: map node, key, digest and the object headers of the decoded
+     * value and its fields.
+     */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    DecodeCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the decoded form of a world state value, decoding it with the codec only if the same bytes have not
+     * been decoded by that codec recently.
+     */
+    <T> T decode(final LedgerCodec<T> codec, final byte[] value) {
+        if (maxBytes <= 0) {
+            return codec.decode(value);
+        }
+
+        Key key = new Key(codec, SHA_256.get().digest(value));
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                @SuppressWarnings("unchecked")
+                T decoded = (T) cached.value;
+                return decoded;
+            }
+        }
+
+        misses.increment();
+        T decoded = codec.decode(value);
+        put(key, new Entry(decoded, value.length + ENTRY_OVERHEAD));
+        return decoded;
+    }
+
+    private synchronized void put(final Key key, final Entry entry) {
+        if (entry.size > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        bytes += entry.size - (previous == null ? 0 : previous.size);
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().size;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Returns the size and counters of the cache as a JSON object.
+     */
+    String toJson() {
+        int size;
+        long used;
+        synchronized (this) {
+            size = entries.size();
+            used = bytes;
+        }
+        return new JsonResultWriter()
+                .raw("{\"entries\":").number(size)
+                .raw(",\"bytes\":").number(used)
+                .raw(",\"maxBytes\":").number(maxBytes)
+                .raw(",\"hits\":").number(hits.sum())
+                .raw(",\"misses\":").number(misses.sum())
+                .raw(",\"hitRatio\":").raw(String.format(Locale.ROOT, "%.4f", hitRatio()))
+                .raw(",\"evictions\":").number(evictions.sum())
+                .raw("}").toString();
+    }
+
+    /**
+     * Returns a one-line summary of the counters.
+     */
+    String summary() {
+        return String.format(Locale.ROOT, "decode cache: hits=%d misses=%d hitRatio=%.4f evictions=%d",
+                hits.sum(), misses.sum(), hitRatio(), evictions.sum());
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private static final class Key {
+
+        private final LedgerCodec<?> codec;
+        private final byte[] digest;
+        private final int hash;
+
+        Key(final LedgerCodec<?> codec, final byte[] digest) {
+            this.codec = codec;
+            this.digest = digest;
+            this.hash = 31 * System.identityHashCode(codec) + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return codec == other.codec && MessageDigest.isEqual(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long size;
+
+        Entry(final Object value, final long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
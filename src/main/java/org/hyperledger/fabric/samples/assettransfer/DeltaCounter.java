@@ -0,0 +1,201 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+
+/**
+ * A family of counters, one per attribute value, that many transactions of a block can update without conflicting.
+ *
+ * <p>A transaction never reads or rewrites a shared total. Instead it writes its net change to a key of its own,
+ * {@code counter~delta, name, attribute, txId}, so concurrent increments of one counter touch disjoint keys and all
+ * pass MVCC validation. The changes of a transaction are collected by its {@link TransactionContext} and written as
+ * a single delta when it ends. A counter's value is its base, {@code counter~base, name, attribute}, plus all of its
+ * deltas, summed on read with a partial composite key query. {@link #compact(ChaincodeStub, int)} folds deltas into
+ * the base so that reads stay short; it is the only writer of the base besides {@link #reset(Context, String, long)}.
+ *
+ * <p>Reading a counter scans its deltas, so reads belong in evaluate transactions: a submit transaction that reads a
+ * counter would be invalidated by any delta committed concurrently.
+ *
+ * @param <T> the counted record type
+ */
+final class DeltaCounter<T> {
+
+    static final String DELTA_OBJECT_TYPE = "counter~delta";
+    static final String BASE_OBJECT_TYPE = "counter~base";
+
+    private final String name;
+    private final Function<T, String> attribute;
+    private final Predicate<T> counts;
+
+    /**
+     * @param name identifies the counter family in its keys, e.g. {@code owner~notifications}
+     * @param attribute extracts the attribute value a record is counted under; returning null leaves it uncounted
+     * @param counts decides whether a record is counted at all
+     */
+    DeltaCounter(final String name, final Function<T, String> attribute, final Predicate<T> counts) {
+        this.name = name;
+        this.attribute = attribute;
+        this.counts = counts;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Moves the contribution of a record from its previous state to its current one. Either side may be null when
+     * the record is being created or removed; changes that cancel out within a transaction write nothing.
+     */
+    void update(final Context ctx, final T previous, final T current) {
+        String previousValue = counted(previous);
+        String currentValue = counted(current);
+
+        if (previousValue != null) {
+            add(ctx, previousValue, -1);
+        }
+        if (currentValue != null) {
+            add(ctx, currentValue, 1);
+        }
+    }
+
+    /**
+     * Adds to the counter of an attribute value. The change is written when the transaction ends.
+     */
+    void add(final Context ctx, final String value, final long delta) {
+        transactionContext(ctx).addCounterDelta(deltaKey(ctx.getStub(), value), delta);
+    }
+
+    /**
+     * Returns the current value of the counter of an attribute value, including the changes made so far by this
+     * transaction.
+     */
+    long get(final Context ctx, final String value) {
+        ChaincodeStub stub = ctx.getStub();
+        long total = decode(stub.getState(baseKey(stub, value)));
+
+        try (QueryResults<KeyValue> deltas = QueryResults.of(
+                stub.getStateByPartialCompositeKey(DELTA_OBJECT_TYPE, name, value))) {
+            for (KeyValue delta : deltas) {
+                total += decode(delta.getValue());
+            }
+        }
+
+        if (ctx instanceof TransactionContext) {
+            total += ((TransactionContext) ctx).getCounterDelta(deltaKey(stub, value));
+        }
+        return total;
+    }
+
+    /**
+     * Sets the counter of an attribute value, discarding its deltas; used when recounting from the records.
+     */
+    void reset(final Context ctx, final String value, final long total) {
+        ChaincodeStub stub = ctx.getStub();
+        List<String> deltaKeys = new ArrayList<>();
+
+        try (QueryResults<KeyValue> deltas = QueryResults.of(
+                stub.getStateByPartialCompositeKey(DELTA_OBJECT_TYPE, name, value))) {
+            for (KeyValue delta : deltas) {
+                deltaKeys.add(delta.getKey());
+            }
+        }
+
+        for (String deltaKey : deltaKeys) {
+            stub.delState(deltaKey);
+        }
+        transactionContext(ctx).clearCounterDelta(deltaKey(stub, value));
+        writeBase(stub, baseKey(stub, value), total);
+    }
+
+    /**
+     * Folds up to maxDeltas deltas of this counter family into their bases. Compaction only conflicts with
+     * increments that land in the part of the key range it has scanned; call it again until it returns less than
+     * maxDeltas.
+     *
+     * @return the number of deltas folded
+     */
+    int compact(final ChaincodeStub stub, final int maxDeltas) {
+        Map<String, Long> folded = new LinkedHashMap<>();
+        List<String> deltaKeys = new ArrayList<>();
+
+        try (QueryResults<KeyValue> deltas = QueryResults.of(
+                stub.getStateByPartialCompositeKey(DELTA_OBJECT_TYPE, name))) {
+            for (KeyValue delta : deltas) {
+                if (deltaKeys.size() == maxDeltas) {
+                    break;
+                }
+                List<String> attributes = stub.splitCompositeKey(delta.getKey()).getAttributes();
+                folded.merge(baseKey(stub, attributes.get(1)), decode(delta.getValue()), Long::sum);
+                deltaKeys.add(delta.getKey());
+            }
+        }
+
+        for (String deltaKey : deltaKeys) {
+            stub.delState(deltaKey);
+        }
+        for (Map.Entry<String, Long> base : folded.entrySet()) {
+            writeBase(stub, base.getKey(), decode(stub.getState(base.getKey())) + base.getValue());
+        }
+        return deltaKeys.size();
+    }
+
+    /**
+     * Encodes a counter value the way it is stored in a base or delta key.
+     */
+    static byte[] encode(final long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long decode(final byte[] value) {
+        if (value == null || value.length == 0) {
+            return 0L;
+        }
+        return Long.parseLong(new String(value, StandardCharsets.UTF_8));
+    }
+
+    private String counted(final T record) {
+        if (record == null || !counts.test(record)) {
+            return null;
+        }
+        return attribute.apply(record);
+    }
+
+    /**
+     * Stores a base, or removes it once it is back at zero so that idle counters leave nothing behind.
+     */
+    private static void writeBase(final ChaincodeStub stub, final String key, final long total) {
+        if (total == 0L) {
+            stub.delState(key);
+        } else {
+            stub.putState(key, encode(total));
+        }
+    }
+
+    private String deltaKey(final ChaincodeStub stub, final String value) {
+        return stub.createCompositeKey(DELTA_OBJECT_TYPE, name, value, stub.getTxId()).toString();
+    }
+
+    private String baseKey(final ChaincodeStub stub, final String value) {
+        return stub.createCompositeKey(BASE_OBJECT_TYPE, name, value).toString();
+    }
+
+    private static TransactionContext transactionContext(final Context ctx) {
+        if (!(ctx instanceof TransactionContext)) {
+            throw new IllegalStateException("Delta counters need the contract to run with a TransactionContext");
+        }
+        return (TransactionContext) ctx;
+    }
+}
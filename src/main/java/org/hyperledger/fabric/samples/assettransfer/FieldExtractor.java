@@ -0,0 +1,222 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pulls a few top-level fields out of a stored value without decoding it into its {@code @DataType}, so scans that
+ * only test a field or two cost a pass over the bytes instead of building an object per record.
+ *
+ * <p>JSON values are scanned in place; fields are returned as their scalar text, as {@link CanonicalJson.Reader}
+ * would read them into a string field, so {@code true}, {@code "true"} and {@code 1.5} all come back as text. Values
+ * the scanner does not handle in place, such as strings with escapes or compact values, are read through the
+ * lenient JSON reader instead, which still skips the fields that are not wanted.
+ */
+final class FieldExtractor {
+
+    private final String[] fields;
+    private final byte[][] names;
+
+    /**
+     * @param fields the names of the fields to extract, in the order {@link #extract} returns them
+     */
+    FieldExtractor(final String... fields) {
+        this.fields = fields.clone();
+        this.names = new byte[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Returns the fields of a stored value in constructor order; absent and null fields are returned as null.
+     */
+    String[] extract(final LedgerCodec<?> codec, final byte[] value) {
+        if (!LedgerCodec.isCompact(value)) {
+            String[] extracted = scan(value);
+            if (extracted != null) {
+                return extracted;
+            }
+        }
+        return read(codec.toJson(value));
+    }
+
+    /**
+     * Returns a single field of a stored value; see {@link #extract}.
+     */
+    String extractFirst(final LedgerCodec<?> codec, final byte[] value) {
+        return extract(codec, value)[0];
+    }
+
+    /**
+     * Scans a JSON object for the wanted fields, or returns null if the value needs the full reader.
+     */
+    private String[] scan(final byte[] json) {
+        String[] extracted = new String[fields.length];
+        boolean[] found = new boolean[fields.length];
+        int remaining = fields.length;
+
+        int position = skipWhitespace(json, 0);
+        if (position >= json.length || json[position] != '{') {
+            return null;
+        }
+        position = skipWhitespace(json, position + 1);
+
+        while (remaining > 0) {
+            if (position >= json.length) {
+                return null;
+            }
+            if (json[position] == '}') {
+                return extracted;
+            }
+            if (json[position] == ',') {
+                position = skipWhitespace(json, position + 1);
+            }
+            if (position >= json.length || json[position] != '"') {
+                return null;
+            }
+
+            int nameStart = position + 1;
+            int nameEnd = endOfString(json, nameStart);
+            if (nameEnd < 0) {
+                return null;
+            }
+            position = skipWhitespace(json, nameEnd + 1);
+            if (position >= json.length || json[position] != ':') {
+                return null;
+            }
+            position = skipWhitespace(json, position + 1);
+
+            int field = fieldIndex(json, nameStart, nameEnd);
+            int valueEnd = endOfValue(json, position);
+            if (valueEnd < 0) {
+                return null;
+            }
+            if (field >= 0 && !found[field]) {
+                if (json[position] == '"') {
+                    if (hasEscape(json, position + 1, valueEnd - 1)) {
+                        return null;
+                    }
+                    extracted[field] = new String(json, position + 1, valueEnd - position - 2, StandardCharsets.UTF_8);
+                } else if (json[position] == '{' || json[position] == '[') {
+                    return null;
+                } else if (!isNull(json, position, valueEnd)) {
+                    extracted[field] = new String(json, position, valueEnd - position, StandardCharsets.US_ASCII);
+                }
+                found[field] = true;
+                remaining--;
+            }
+            position = skipWhitespace(json, valueEnd);
+        }
+        return extracted;
+    }
+
+    /**
+     * Reads the wanted fields with the lenient JSON reader, skipping the others.
+     */
+    private String[] read(final byte[] json) {
+        String[] extracted = new String[fields.length];
+        CanonicalJson.Reader in = new CanonicalJson.Reader(json);
+
+        in.beginObject();
+        while (in.hasNextField()) {
+            int field = Arrays.asList(fields).indexOf(in.nextName());
+            if (field >= 0) {
+                extracted[field] = in.readString();
+            } else {
+                in.skipValue();
+            }
+        }
+        return extracted;
+    }
+
+    private int fieldIndex(final byte[] json, final int start, final int end) {
+        for (int i = 0; i < names.length; i++) {
+            if (Arrays.equals(json, start, end, names[i], 0, names[i].length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the quote closing a string whose content starts at start, or -1 if there is none.
+     */
+    private static int endOfString(final byte[] json, final int start) {
+        for (int i = start; i < json.length; i++) {
+            if (json[i] == '\\') {
+                i++;
+            } else if (json[i] == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position just after the value starting at start, or -1 if it is cut off.
+     */
+    private static int endOfValue(final byte[] json, final int start) {
+        if (start >= json.length) {
+            return -1;
+        }
+        byte first = json[start];
+        if (first == '"') {
+            int end = endOfString(json, start + 1);
+            return end < 0 ? -1 : end + 1;
+        }
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            for (int i = start; i < json.length; i++) {
+                byte b = json[i];
+                if (b == '"') {
+                    i = endOfString(json, i + 1);
+                    if (i < 0) {
+                        return -1;
+                    }
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        int i = start;
+        while (i < json.length && json[i] != ',' && json[i] != '}' && json[i] != ']' && !isWhitespace(json[i])) {
+            i++;
+        }
+        return i == start ? -1 : i;
+    }
+
+    private static boolean hasEscape(final byte[] json, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (json[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNull(final byte[] json, final int start, final int end) {
+        return end - start == 4 && json[start] == 'n' && json[start + 1] == 'u' && json[start + 2] == 'l'
+                && json[start + 3] == 'l';
+    }
+
+    private static int skipWhitespace(final byte[] json, final int start) {
+        int i = start;
+        while (i < json.length && isWhitespace(json[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
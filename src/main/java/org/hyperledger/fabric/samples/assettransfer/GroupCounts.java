@@ -0,0 +1,68 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+
+/**
+ * Record counts split by the value of one field, e.g. notifications per status. Groups are kept in key order so
+ * that every peer endorses the same response. Records without the field are counted under the empty string.
+ */
+final class GroupCounts {
+
+    private final SortedMap<String, Long> groups = new TreeMap<>();
+    private long total;
+
+    void add(final String group) {
+        add(group, 1);
+    }
+
+    void add(final String group, final long count) {
+        groups.merge(group == null ? "" : group, count, Long::sum);
+        total += count;
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * Counts the records of a key range by one of their fields, read from the stored bytes without decoding them.
+     */
+    static GroupCounts scan(final ChaincodeStub stub, final String startKey, final String endKey,
+                            final LedgerCodec<?> codec, final FieldExtractor field) {
+        GroupCounts counts = new GroupCounts();
+        try (QueryResults<KeyValue> results = QueryResults.of(stub.getStateByRange(startKey, endKey))) {
+            for (KeyValue result : results) {
+                counts.add(field.extractFirst(codec, result.getValue()));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the counts as {@code {"<field>":value,"total":n,"<groupsField>":{"group":n, ...}}}; the leading
+     * field is left out when field is null.
+     */
+    String toJson(final String field, final String value, final String groupsField) {
+        JsonResultWriter json = new JsonResultWriter().raw("{");
+        if (field != null) {
+            json.string(field).raw(":").string(value).raw(",");
+        }
+        json.raw("\"total\":").number(total).raw(",").string(groupsField).raw(":{");
+
+        String separator = "";
+        for (Map.Entry<String, Long> group : groups.entrySet()) {
+            json.raw(separator).string(group.getKey()).raw(":").number(group.getValue());
+            separator = ",";
+        }
+        return json.raw("}}").toString();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+/**
+ * Builds a JSON query response in a single growing buffer while the ledger is iterated. Stored values are already
+ * JSON, so records that need no transformation are copied through byte for byte instead of being deserialized into
+ * objects, collected in a list and serialized again.
+ */
+final class JsonResultWriter {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    private int elements;
+
+    /**
+     * Copies every value of a query into a JSON array and closes the query.
+     */
+    static String writeArray(final QueryResultsIterator<KeyValue> results, final LedgerCodec<?> codec) {
+        JsonResultWriter writer = new JsonResultWriter().beginArray();
+
+        try (QueryResults<KeyValue> values = QueryResults.of(results)) {
+            for (KeyValue value : values) {
+                writer.value(codec.toJson(value.getValue()));
+            }
+        }
+
+        return writer.endArray().toString();
+    }
+
+    JsonResultWriter beginArray() {
+        out.write('[');
+        elements = 0;
+        return this;
+    }
+
+    /**
+     * Closes the current array; its elements count as records returned by the running transaction.
+     */
+    JsonResultWriter endArray() {
+        out.write(']');
+        TransactionMetrics.returned(elements);
+        return this;
+    }
+
+    /**
+     * Appends an element of the current array from its JSON encoding.
+     */
+    JsonResultWriter value(final byte[] json) {
+        if (elements++ > 0) {
+            out.write(',');
+        }
+        out.writeBytes(json);
+        return this;
+    }
+
+    /**
+     * Appends an element of the current array from its JSON encoding.
+     */
+    JsonResultWriter value(final String json) {
+        return value(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends JSON text verbatim, e.g. punctuation and field names of an enclosing object.
+     */
+    JsonResultWriter raw(final String json) {
+        out.writeBytes(json.getBytes(StandardCharsets.UTF_8));
+        return this;
+    }
+
+    /**
+     * Appends a JSON string literal. Composite keys contain U+0000 separators, so control characters are escaped.
+     */
+    JsonResultWriter string(final String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return raw(json.append('"').toString());
+    }
+
+    JsonResultWriter number(final long value) {
+        return raw(Long.toString(value));
+    }
+
+    /**
+     * Returns the number of elements written to the current array.
+     */
+    int elementCount() {
+        return elements;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     */
+    int size() {
+        return out.size();
+    }
+
+    @Override
+    public String toString() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
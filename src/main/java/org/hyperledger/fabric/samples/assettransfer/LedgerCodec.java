@@ -0,0 +1,264 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+
+/**
+ * Converts a {@code @DataType} to and from its world state value.
+ *
+ * <p>Values are written as canonical JSON (see {@link CanonicalJson}) unless {@code CHAINCODE_LEDGER_ENCODING=compact}
+ * is set, in which case they are written in a compact binary form: a {@link #COMPACT_V1} header byte, the number of
+ * fields, then every field in declaration order without its name. Reads accept both forms, because a JSON value
+ * always starts with {@code '{'}, so existing records keep working and move to the compact form on their next write.
+ * Clients always see JSON.
+ *
+ * <p>Subclasses are written by hand for each type, so neither encoding uses reflection.
+ *
+ * @param <T> the value type
+ */
+abstract class LedgerCodec<T> {
+
+    /**
+     * Format and version of the compact encoding. Bumped whenever the layout changes incompatibly.
+     */
+    static final byte COMPACT_V1 = 0x01;
+
+    static final boolean WRITE_COMPACT = "compact".equalsIgnoreCase(ChaincodeConfig.LEDGER_ENCODING);
+
+    private final int jsonCapacity;
+
+    /**
+     * @param jsonCapacity the expected size of the JSON form, used to size the output buffer
+     */
+    LedgerCodec(final int jsonCapacity) {
+        this.jsonCapacity = jsonCapacity;
+    }
+
+    /**
+     * Encodes a value in the configured ledger encoding.
+     */
+    byte[] encode(final T value) {
+        return WRITE_COMPACT ? encodeCompact(value) : encodeJson(value);
+    }
+
+    /**
+     * Decodes a world state value written in either encoding.
+     */
+    T decode(final byte[] value) {
+        if (isCompact(value)) {
+            return decodeCompact(value);
+        }
+
+        CanonicalJson.Reader in = new CanonicalJson.Reader(value);
+        T decoded = readJson(in);
+        in.end();
+        return decoded;
+    }
+
+    /**
+     * Decodes a JSON array of values sent by a client. Null elements are kept as null.
+     */
+    List<T> decodeJsonArray(final String json) {
+        CanonicalJson.Reader in = new CanonicalJson.Reader(json);
+        List<T> values = new ArrayList<>();
+
+        in.beginArray();
+        while (in.hasNextElement()) {
+            values.add(in.nextIsNull() ? null : readJson(in));
+        }
+        in.end();
+        return values;
+    }
+
+    /**
+     * Returns the JSON form of a world state value, copying JSON values through untouched.
+     */
+    byte[] toJson(final byte[] value) {
+        return isCompact(value) ? encodeJson(decodeCompact(value)) : value;
+    }
+
+    byte[] encodeJson(final T value) {
+        CanonicalJson.Writer out = new CanonicalJson.Writer(jsonCapacity);
+        writeJson(out, value);
+        return out.toBytes();
+    }
+
+    byte[] encodeCompact(final T value) {
+        CompactWriter out = new CompactWriter();
+        out.out.write(COMPACT_V1);
+        out.writeVarint(fieldCount());
+        writeFields(out, value);
+        return out.out.toByteArray();
+    }
+
+    T decodeCompact(final byte[] value) {
+        CompactReader in = new CompactReader(value);
+        if (in.readByte() != COMPACT_V1) {
+            throw new ChaincodeException("Unsupported ledger value format " + value[0]);
+        }
+        in.remaining = (int) in.readVarint();
+        return readFields(in);
+    }
+
+    static boolean isCompact(final byte[] value) {
+        return value.length > 0 && value[0] == COMPACT_V1;
+    }
+
+    /**
+     * Writes the fields of a value in ascending name order.
+     */
+    abstract void writeJson(CanonicalJson.Writer out, T value);
+
+    /**
+     * Reads a JSON object, ignoring fields the type does not have.
+     */
+    abstract T readJson(CanonicalJson.Reader in);
+
+    abstract int fieldCount();
+
+    abstract void writeFields(CompactWriter out, T value);
+
+    abstract T readFields(CompactReader in);
+
+    /**
+     * Writes fields of the compact encoding. Strings are UTF-8 prefixed with their length plus one, so zero stands
+     * for null; other nullable fields start with a presence byte.
+     */
+    static final class CompactWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+
+        void writeString(final String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            out.writeBytes(bytes);
+        }
+
+        void writeBoolean(final Boolean value) {
+            out.write(value == null ? 0 : value ? 2 : 1);
+        }
+
+        void writeDouble(final Double value) {
+            if (value == null) {
+                out.write(0);
+                return;
+            }
+            out.write(1);
+            long bits = Double.doubleToLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        }
+
+        void writeLong(final Long value) {
+            if (value == null) {
+                out.write(0);
+                return;
+            }
+            out.write(1);
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeVarint(final long value) {
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                out.write((int) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            out.write((int) remaining);
+        }
+    }
+
+    /**
+     * Reads fields of the compact encoding. Fields missing from a value written by an older layout read as null.
+     */
+    static final class CompactReader {
+
+        private final byte[] in;
+        private int position;
+        private int remaining;
+
+        CompactReader(final byte[] in) {
+            this.in = in;
+        }
+
+        String readString() {
+            if (!nextField()) {
+                return null;
+            }
+            int length = (int) readVarint();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(in, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+
+        Boolean readBoolean() {
+            if (!nextField()) {
+                return null;
+            }
+            byte value = readByte();
+            return value == 0 ? null : value == 2;
+        }
+
+        Double readDouble() {
+            if (!nextField() || readByte() == 0) {
+                return null;
+            }
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (readByte() & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        Long readLong() {
+            if (!nextField() || readByte() == 0) {
+                return null;
+            }
+            long zigzag = readVarint();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private boolean nextField() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            return true;
+        }
+
+        private byte readByte() {
+            if (position >= in.length) {
+                throw new ChaincodeException("Truncated ledger value");
+            }
+            return in[position++];
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new ChaincodeException("Malformed ledger value");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Iterator;
+
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+/**
+ * A stub that counts the world state calls of a transaction and the bytes they move into its
+ * {@link TransactionMetrics}. Every key a range, composite key or rich query yields counts as scanned.
+ */
+final class MeteredChaincodeStub extends DelegatingChaincodeStub {
+
+    private final TransactionMetrics metrics;
+
+    MeteredChaincodeStub(final ChaincodeStub delegate, final TransactionMetrics metrics) {
+        super(delegate);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        byte[] value = super.getState(key);
+        metrics.stateReads++;
+        metrics.bytesRead += value == null ? 0 : value.length;
+        return value;
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        metrics.stateWrites++;
+        metrics.bytesWritten += value == null ? 0 : value.length;
+        super.putState(key, value);
+    }
+
+    @Override
+    public void delState(final String key) {
+        metrics.stateWrites++;
+        super.delState(key);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        return scan(super.getStateByRange(startKey, endKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey,
+            final String endKey, final int pageSize, final String bookmark) {
+        return scan(super.getStateByRangeWithPagination(startKey, endKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return scan(super.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+            final String... attributes) {
+        return scan(super.getStateByPartialCompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        return scan(super.getStateByPartialCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        return scan(super.getStateByPartialCompositeKeyWithPagination(compositeKey, pageSize, bookmark));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        return scan(super.getQueryResult(query));
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query,
+            final int pageSize, final String bookmark) {
+        return scan(super.getQueryResultWithPagination(query, pageSize, bookmark));
+    }
+
+    private QueryResultsIterator<KeyValue> scan(final QueryResultsIterator<KeyValue> results) {
+        metrics.rangeScans++;
+        return new MeteredResults(results);
+    }
+
+    private QueryResultsIteratorWithMetadata<KeyValue> scan(final QueryResultsIteratorWithMetadata<KeyValue> results) {
+        metrics.rangeScans++;
+        return new MeteredPage(results);
+    }
+
+    /**
+     * Counts the keys and bytes a query yields as it is iterated.
+     */
+    private Iterator<KeyValue> metered(final Iterator<KeyValue> iterator) {
+        return new Iterator<KeyValue>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public KeyValue next() {
+                KeyValue next = iterator.next();
+                metrics.keysScanned++;
+                metrics.bytesRead += next.getValue().length;
+                return next;
+            }
+        };
+    }
+
+    private final class MeteredResults implements QueryResultsIterator<KeyValue> {
+
+        private final QueryResultsIterator<KeyValue> results;
+
+        MeteredResults(final QueryResultsIterator<KeyValue> results) {
+            this.results = results;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return metered(results.iterator());
+        }
+
+        @Override
+        public void close() {
+            QueryResults.of(results).close();
+        }
+    }
+
+    private final class MeteredPage implements QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final QueryResultsIteratorWithMetadata<KeyValue> results;
+
+        MeteredPage(final QueryResultsIteratorWithMetadata<KeyValue> results) {
+            this.results = results;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return metered(results.iterator());
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return results.getMetadata();
+        }
+
+        @Override
+        public void close() {
+            QueryResults.of(results).close();
+        }
+    }
+}
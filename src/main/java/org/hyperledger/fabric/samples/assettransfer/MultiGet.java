@@ -0,0 +1,95 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Reads a list of records by id in one transaction, so a client that needs a few dozen records makes one call
+ * instead of one per record. The result holds the records that were found and the ids that were not:
+ *
+ * <pre>{"records":[{...}, ...],"missing":["id", ...]}</pre>
+ *
+ * <p>Ids may be given with or without their key prefix; records come back in the order of their first id, and an
+ * id that names the same key as an earlier one is skipped. Missing ids are reported as the caller gave them.
+ */
+final class MultiGet {
+
+    private MultiGet() {
+    }
+
+    /**
+     * Parses a JSON array of ids, holding at least one and at most {@code CHAINCODE_BATCH_MAX_SIZE} ids.
+     *
+     * @throws IllegalArgumentException if the ids are malformed, empty or too many
+     */
+    static List<String> parseIds(final String idsJson) {
+        List<String> ids = new ArrayList<>();
+        try {
+            CanonicalJson.Reader in = new CanonicalJson.Reader(idsJson == null ? "" : idsJson);
+            in.beginArray();
+            while (in.hasNextElement()) {
+                ids.add(in.readString());
+            }
+            in.end();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Ids are not a JSON array of strings: " + e.getMessage(), e);
+        }
+
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("No ids given");
+        }
+        if (ids.size() > ChaincodeConfig.BATCH_MAX_SIZE) {
+            throw new IllegalArgumentException(String.format("%d ids exceed the maximum of %d", ids.size(),
+                    ChaincodeConfig.BATCH_MAX_SIZE));
+        }
+        for (String id : ids) {
+            if (id == null || id.isEmpty()) {
+                throw new IllegalArgumentException("Ids must not be null or empty");
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Reads the records of the given ids.
+     *
+     * @param keyOf maps an id to the ledger key of its record, adding the key prefix if needed
+     */
+    static String read(final ChaincodeStub stub, final LedgerCodec<?> codec, final List<String> ids,
+                       final UnaryOperator<String> keyOf) {
+        Set<String> seenKeys = new HashSet<>();
+        List<String> missing = new ArrayList<>();
+
+        JsonResultWriter json = new JsonResultWriter().raw("{\"records\":").beginArray();
+        for (String id : ids) {
+            String key = keyOf.apply(id);
+            if (!seenKeys.add(key)) {
+                continue;
+            }
+
+            byte[] value = stub.getState(key);
+            if (value == null || value.length == 0) {
+                missing.add(id);
+            } else {
+                json.value(codec.toJson(value));
+            }
+        }
+        json.endArray().raw(",\"missing\":[");
+
+        String separator = "";
+        for (String id : missing) {
+            json.raw(separator).string(id);
+            separator = ",";
+        }
+        return json.raw("]}").toString();
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * A {@link LedgerCodec} whose values can be patched with a sparse JSON object, e.g. by a {@code Patch*}
+ * transaction. Only the codecs of patchable types implement it, so a patch of any other type does not compile.
+ *
+ * @param <T> the value type
+ */
+interface PatchableCodec<T> {
+
+    /**
+     * Reads a JSON object whose missing fields default to those of base, or to null when base is null.
+     */
+    T readJson(CanonicalJson.Reader in, T base);
+
+    /**
+     * Applies a sparse JSON object to a value: fields present in the object replace those of the value, an explicit
+     * null clears a field, and every other field is kept.
+     */
+    default T merge(final T value, final String json) {
+        CanonicalJson.Reader in = new CanonicalJson.Reader(json);
+        T merged = readJson(in, value);
+        in.end();
+        return merged;
+    }
+}
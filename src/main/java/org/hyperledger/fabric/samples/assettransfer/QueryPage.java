@@ -0,0 +1,148 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.time.Instant;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+/**
+ * Builds one page of a paginated query as {@code {"records":[...],"bookmark":"...","fetchedCount":n}}. The same
+ * envelope is returned by every paged transaction; pass the bookmark back to read the next page, an empty bookmark
+ * means there is nothing left.
+ *
+ * <p>A page ends after pageSize records or once adding the next record would exceed maxBytes, whichever comes
+ * first. A page always holds at least one record so that a single oversized record cannot stall the caller. When
+ * the byte budget cuts a page short the bookmark is the key of the first record left out, which is how the peer
+ * interprets range and composite key bookmarks.
+ */
+final class QueryPage {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private final JsonResultWriter writer = new JsonResultWriter().raw("{\"records\":").beginArray();
+    private final int maxBytes;
+    private int bytes;
+
+    private QueryPage(final int maxBytes) {
+        this.maxBytes = maxBytes > 0 ? maxBytes : DEFAULT_MAX_BYTES;
+    }
+
+    /**
+     * Reads one page of the records stored between startKey and endKey.
+     */
+    static String range(final ChaincodeStub stub, final LedgerCodec<?> codec, final String startKey, final String endKey,
+                        final int pageSize, final String bookmark, final int maxBytes) {
+        QueryPage page = new QueryPage(maxBytes);
+        QueryResultsIteratorWithMetadata<KeyValue> results =
+                stub.getStateByRangeWithPagination(startKey, endKey, pageSize(pageSize), bookmark(bookmark));
+
+        try (QueryResults<KeyValue> values = QueryResults.of(results)) {
+            for (KeyValue result : values) {
+                if (!page.add(codec.toJson(result.getValue()))) {
+                    return page.toJson(result.getKey());
+                }
+            }
+        }
+
+        return page.toJson(results.getMetadata().getBookmark());
+    }
+
+    /**
+     * Reads one page of the records an index points to for the given attribute value.
+     */
+    static String index(final ChaincodeStub stub, final LedgerCodec<?> codec, final CompositeIndex<?> index, final String value,
+                        final int pageSize, final String bookmark, final int maxBytes) {
+        return index(stub, codec, index.getObjectType(), value, pageSize, bookmark, maxBytes);
+    }
+
+    /**
+     * Reads one page of the records pointed to by composite keys {@code objectType, value, recordKey}.
+     */
+    static String index(final ChaincodeStub stub, final LedgerCodec<?> codec, final String objectType, final String value,
+                        final int pageSize, final String bookmark, final int maxBytes) {
+        QueryResultsIteratorWithMetadata<KeyValue> entries = stub.getStateByPartialCompositeKeyWithPagination(
+                stub.createCompositeKey(objectType, value), pageSize(pageSize), bookmark(bookmark));
+
+        return records(stub, codec, entries, entry -> CompositeIndex.recordKey(stub, entry), maxBytes);
+    }
+
+    /**
+     * Reads one page of the records a time index points to between from (inclusive) and to (exclusive), oldest
+     * first.
+     */
+    static String timeRange(final ChaincodeStub stub, final LedgerCodec<?> codec, final TimeIndex<?> index,
+                            final Instant from, final Instant to, final int pageSize, final String bookmark,
+                            final int maxBytes) {
+        QueryResultsIteratorWithMetadata<KeyValue> entries = stub.getStateByRangeWithPagination(
+                index.startKey(from), index.endKey(to), pageSize(pageSize), bookmark(bookmark));
+
+        return records(stub, codec, entries, entry -> index.recordKey(entry.getKey()), maxBytes);
+    }
+
+    /**
+     * Reads the records index entries point to, skipping entries whose record is gone.
+     */
+    private static String records(final ChaincodeStub stub, final LedgerCodec<?> codec,
+                                  final QueryResultsIteratorWithMetadata<KeyValue> entries,
+                                  final Function<KeyValue, String> recordKey, final int maxBytes) {
+        QueryPage page = new QueryPage(maxBytes);
+
+        try (QueryResults<KeyValue> indexEntries = QueryResults.of(entries)) {
+            for (KeyValue entry : indexEntries) {
+                byte[] record = stub.getState(recordKey.apply(entry));
+                if (record == null || record.length == 0) {
+                    continue;
+                }
+                if (!page.add(codec.toJson(record))) {
+                    return page.toJson(entry.getKey());
+                }
+            }
+        }
+
+        return page.toJson(entries.getMetadata().getBookmark());
+    }
+
+    private static int pageSize(final int pageSize) {
+        if (pageSize <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    private static String bookmark(final String bookmark) {
+        return bookmark == null ? "" : bookmark;
+    }
+
+    /**
+     * Appends a stored JSON record, or returns false if it does not fit in the byte budget.
+     */
+    private boolean add(final byte[] record) {
+        if (writer.elementCount() > 0 && bytes + record.length > maxBytes) {
+            return false;
+        }
+
+        writer.value(record);
+        bytes += record.length;
+        return true;
+    }
+
+    private String toJson(final String bookmark) {
+        int fetchedCount = writer.elementCount();
+
+        return writer.endArray()
+                .raw(",\"bookmark\":").string(bookmark == null ? "" : bookmark)
+                .raw(",\"fetchedCount\":").number(fetchedCount)
+                .raw("}")
+                .toString();
+    }
+}
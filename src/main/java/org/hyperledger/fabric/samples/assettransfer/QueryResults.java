@@ -0,0 +1,56 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Iterator;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+/**
+ * Wraps a ledger query iterator so that it can be used in try-with-resources without handling the checked
+ * exception of {@link QueryResultsIterator#close()}. Closing releases the query on the peer as soon as the caller is
+ * done with it instead of at the end of the transaction.
+ *
+ * @param <T> the element type
+ */
+final class QueryResults<T> implements Iterable<T>, AutoCloseable {
+
+    private final Iterable<T> results;
+    private final AutoCloseable closeable;
+
+    private QueryResults(final Iterable<T> results, final AutoCloseable closeable) {
+        this.results = results;
+        this.closeable = closeable;
+    }
+
+    static <T> QueryResults<T> of(final QueryResultsIterator<T> results) {
+        return new QueryResults<>(results, results);
+    }
+
+    /**
+     * Wraps a paginated query; the caller keeps its own reference to read the bookmark from the metadata.
+     */
+    static <T> QueryResults<T> of(final QueryResultsIteratorWithMetadata<T> results) {
+        return new QueryResults<>(results, results);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return results.iterator();
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeable.close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ChaincodeException("Failed to close query results", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs at most a fixed number of messages per second, for diagnostics whose volume follows client traffic, such as
+ * a message per missing key. Messages over the limit are counted instead of built, and the count is appended to
+ * the first message of the next second.
+ */
+final class RateLimitedLogger {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger logger;
+    private final int messagesPerSecond;
+
+    private long windowStart = System.nanoTime();
+    private int logged;
+    private long suppressed;
+
+    RateLimitedLogger(final Logger logger, final int messagesPerSecond) {
+        this.logger = logger;
+        this.messagesPerSecond = messagesPerSecond;
+    }
+
+    /**
+     * Logs a message unless the level is disabled or the limit of the current second has been reached. The
+     * message is only built when it is actually logged.
+     */
+    void log(final Level level, final Supplier<String> message) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+
+        long suppressedBefore;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - windowStart >= WINDOW_NANOS) {
+                windowStart = now;
+                logged = 0;
+            }
+            if (logged >= messagesPerSecond) {
+                suppressed++;
+                return;
+            }
+            logged++;
+            suppressedBefore = suppressed;
+            suppressed = 0;
+        }
+
+        if (suppressedBefore == 0) {
+            logger.log(level, message);
+        } else {
+            logger.log(level, () -> message.get() + " (" + suppressedBefore + " similar messages suppressed)");
+        }
+    }
+}
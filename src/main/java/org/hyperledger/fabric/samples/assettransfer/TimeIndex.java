@@ -0,0 +1,172 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * A secondary index that orders records by a timestamp, kept in world state as simple keys
+ * {@code <prefix><timestamp>_<recordKey>} with the timestamp in UTC at a fixed width. The records of a time window
+ * are then a range query between two such keys, whose cost depends on the number of records in the window.
+ * Composite keys cannot be used here because the peer does not range-query them.
+ *
+ * <p>Timestamps are stored as strings chosen by clients; ISO-8601 instants, offset date-times and epoch milliseconds
+ * are indexed, other values leave the record out of the index.
+ *
+ * @param <T> the indexed record type
+ */
+final class TimeIndex<T> {
+
+    private static final DateTimeFormatter KEY_FORMAT =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final int KEY_TIME_LENGTH = "0000-00-00T00:00:00.000Z".length();
+
+    private static final Instant MIN = Instant.parse("0000-01-01T00:00:00Z");
+
+    private static final Instant MAX = Instant.parse("9999-12-31T23:59:59.999Z");
+
+    private final String prefix;
+    private final Function<T, String> timestamp;
+    private final Function<T, String> recordKey;
+
+    /**
+     * @param prefix the key prefix, e.g. {@code createdon_request_}; must not be the prefix of any other key
+     * @param timestamp extracts the timestamp; returning null leaves the record out of the index
+     * @param recordKey extracts the ledger key of the record
+     */
+    TimeIndex(final String prefix, final Function<T, String> timestamp, final Function<T, String> recordKey) {
+        this.prefix = prefix;
+        this.timestamp = timestamp;
+        this.recordKey = recordKey;
+    }
+
+    /**
+     * Returns the index entry key of a record, or null if the record is not indexed.
+     */
+    String entryKey(final T record) {
+        if (record == null) {
+            return null;
+        }
+
+        return entryKey(timestamp.apply(record), recordKey.apply(record));
+    }
+
+    /**
+     * Moves the entry of a record from its previous state to its current one. Either side may be null when the
+     * record is being created or removed; nothing is written when the entry key does not change.
+     */
+    void update(final ChaincodeStub stub, final T previous, final T current) {
+        String previousKey = entryKey(previous);
+        String currentKey = entryKey(current);
+
+        if (Objects.equals(previousKey, currentKey)) {
+            return;
+        }
+        if (previousKey != null) {
+            stub.delState(previousKey);
+        }
+        if (currentKey != null) {
+            stub.putState(currentKey, CompositeIndex.ENTRY_VALUE);
+        }
+    }
+
+    /**
+     * Writes the entry of a record unconditionally; used when backfilling the index.
+     *
+     * @return true if the record is indexed
+     */
+    boolean put(final ChaincodeStub stub, final T record) {
+        String key = entryKey(record);
+        if (key == null) {
+            return false;
+        }
+
+        stub.putState(key, CompositeIndex.ENTRY_VALUE);
+        return true;
+    }
+
+    /**
+     * Writes the entry for a timestamp read straight from a stored value, e.g. by a {@link FieldExtractor}, without
+     * decoding the record.
+     *
+     * @return true if the record is indexed
+     */
+    boolean put(final ChaincodeStub stub, final String recordTimestamp, final String key) {
+        String entryKey = entryKey(recordTimestamp, key);
+        if (entryKey == null) {
+            return false;
+        }
+
+        stub.putState(entryKey, CompositeIndex.ENTRY_VALUE);
+        return true;
+    }
+
+    /**
+     * Returns the first entry key of the records at or after the given time.
+     */
+    String startKey(final Instant from) {
+        return prefix + KEY_FORMAT.format(from);
+    }
+
+    /**
+     * Returns the entry key range end of the records strictly before the given time.
+     */
+    String endKey(final Instant to) {
+        return prefix + KEY_FORMAT.format(to);
+    }
+
+    /**
+     * Returns the ledger key of the record an index entry points to.
+     */
+    String recordKey(final String entryKey) {
+        return entryKey.substring(prefix.length() + KEY_TIME_LENGTH + 1);
+    }
+
+    private String entryKey(final String recordTimestamp, final String key) {
+        Instant time = parse(recordTimestamp);
+        if (time == null) {
+            return null;
+        }
+        return prefix + format(time) + "_" + key;
+    }
+
+    /**
+     * Formats a time the way it appears in index keys, in UTC at a fixed width so that keys sort by time.
+     */
+    static String format(final Instant time) {
+        return KEY_FORMAT.format(time);
+    }
+
+    /**
+     * Parses a timestamp as an ISO-8601 instant or offset date-time, or as epoch milliseconds. Returns null if the
+     * value is none of these or lies outside the years 0000 to 9999, which the fixed-width keys cannot hold.
+     */
+    static Instant parse(final String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        Instant time;
+        try {
+            if (value.chars().allMatch(Character::isDigit)) {
+                time = Instant.ofEpochMilli(Long.parseLong(value));
+            } else {
+                time = OffsetDateTime.parse(value).toInstant();
+            }
+        } catch (DateTimeException | NumberFormatException e) {
+            return null;
+        }
+        return time.isBefore(MIN) || time.isAfter(MAX) ? null : time;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * The transaction context shared by the contracts of this chaincode. It lives for exactly one transaction and is
+ * the place to keep per-transaction state; its stub caches reads and buffers writes until the transaction ends, and
+ * unless metrics are disabled the calls that do reach the peer are counted in its {@link TransactionMetrics}.
+ */
+public class TransactionContext extends Context {
+
+    private final CachingChaincodeStub cachingStub;
+    private final TransactionMetrics metrics;
+    private final Map<String, Long> counterDeltas = new LinkedHashMap<>();
+    private final List<String> eventChanges = new ArrayList<>();
+
+    public TransactionContext(final ChaincodeStub stub) {
+        this(stub, ChaincodeConfig.METRICS_ENABLED ? new TransactionMetrics(stub.getFunction()) : null);
+    }
+
+    private TransactionContext(final ChaincodeStub stub, final TransactionMetrics metrics) {
+        this(new CachingChaincodeStub(metrics == null ? stub : new MeteredChaincodeStub(stub, metrics)), metrics);
+    }
+
+    private TransactionContext(final CachingChaincodeStub cachingStub, final TransactionMetrics metrics) {
+        super(cachingStub);
+        this.cachingStub = cachingStub;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts timing the transaction.
+     */
+    void begin() {
+        if (metrics != null) {
+            metrics.start();
+        }
+    }
+
+    /**
+     * Records the metrics of the transaction once its writes have been flushed. A single record returned as an
+     * object rather than a JSON string counts as one key returned.
+     */
+    void end(final Object result) {
+        if (metrics != null) {
+            if (result != null && !(result instanceof String)) {
+                metrics.keysReturned++;
+            }
+            metrics.finish();
+        }
+    }
+
+    /**
+     * Adds to the net change this transaction makes to a {@link DeltaCounter}, keyed by its delta key.
+     */
+    void addCounterDelta(final String deltaKey, final long delta) {
+        counterDeltas.merge(deltaKey, delta, Long::sum);
+    }
+
+    long getCounterDelta(final String deltaKey) {
+        return counterDeltas.getOrDefault(deltaKey, 0L);
+    }
+
+    void clearCounterDelta(final String deltaKey) {
+        counterDeltas.remove(deltaKey);
+    }
+
+    /**
+     * Adds a change to the {@link AssetEvents} event emitted when the transaction is flushed.
+     */
+    void addEventChange(final String change) {
+        eventChanges.add(change);
+    }
+
+    /**
+     * Sends the writes buffered during the transaction to the peer, preceded by one delta per counter it changed,
+     * and emits the event of the assets it changed, if any.
+     */
+    void flush() {
+        for (Map.Entry<String, Long> delta : counterDeltas.entrySet()) {
+            if (delta.getValue() != 0L) {
+                cachingStub.putState(delta.getKey(), DeltaCounter.encode(delta.getValue()));
+            }
+        }
+        counterDeltas.clear();
+        cachingStub.flush();
+
+        if (!eventChanges.isEmpty()) {
+            cachingStub.setEvent(AssetEvents.EVENT_NAME, AssetEvents.payload(eventChanges));
+            eventChanges.clear();
+        }
+    }
+}
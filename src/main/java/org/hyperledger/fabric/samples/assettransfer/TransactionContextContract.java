@@ -0,0 +1,38 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.ContractInterface;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Runs the transactions of a contract with a {@link TransactionContext}. Buffered writes are flushed once the
+ * transaction function has returned; a transaction that throws is rejected, so its writes are simply dropped. The
+ * metrics of a transaction cover everything from beforeTransaction up to the flush.
+ */
+interface TransactionContextContract extends ContractInterface {
+
+    @Override
+    default Context createContext(final ChaincodeStub stub) {
+        return new TransactionContext(stub);
+    }
+
+    @Override
+    default void beforeTransaction(final Context ctx) {
+        if (ctx instanceof TransactionContext) {
+            ((TransactionContext) ctx).begin();
+        }
+    }
+
+    @Override
+    default void afterTransaction(final Context ctx, final Object result) {
+        if (ctx instanceof TransactionContext) {
+            TransactionContext transactionContext = (TransactionContext) ctx;
+            transactionContext.flush();
+            transactionContext.end(result);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * The cost of one transaction: its wall time and the world state calls it made to the peer. The counters are
+ * filled in by {@link MeteredChaincodeStub}, which sits below the caching stub, so reads served from the cache and
+ * writes overwritten before the flush are not counted. Once the transaction ends they are added to
+ * {@link ChaincodeMetrics}.
+ *
+ * <p>A transaction runs on a single thread from beforeTransaction to afterTransaction, so the counters need no
+ * synchronization, and code that has no access to the context, like {@link JsonResultWriter}, reaches the metrics of
+ * the running transaction through {@link #current()}.
+ */
+final class TransactionMetrics {
+
+    private static final ThreadLocal<TransactionMetrics> CURRENT = new ThreadLocal<>();
+
+    private final String function;
+    private long startNanos;
+
+    long stateReads;
+    long stateWrites;
+    long rangeScans;
+    long keysScanned;
+    long keysReturned;
+    long bytesRead;
+    long bytesWritten;
+
+    TransactionMetrics(final String function) {
+        this.function = function == null || function.isEmpty() ? "unknown" : function;
+    }
+
+    /**
+     * Returns the metrics of the transaction running on this thread, or null.
+     */
+    static TransactionMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds to the number of records the running transaction returns to the client, if metrics are being recorded.
+     */
+    static void returned(final int records) {
+        TransactionMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.keysReturned += records;
+        }
+    }
+
+    String getFunction() {
+        return function;
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+        CURRENT.set(this);
+        ChaincodeMetrics.started(this);
+    }
+
+    void finish() {
+        CURRENT.remove();
+        ChaincodeMetrics.completed(this, (System.nanoTime() - startNanos) / 1000);
+    }
+}
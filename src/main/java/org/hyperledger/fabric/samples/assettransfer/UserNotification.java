@@ -99,7 +99,7 @@ public class UserNotification {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         UserNotification that = (UserNotification) o;
-        return count == that.count && Objects.equals(id, that.id) && Objects.equals(requestId, that.requestId) && Objects.equals(campaignId, that.campaignId) && Objects.equals(attributeList, that.attributeList) && Objects.equals(owner, that.owner) && Objects.equals(createdOn, that.createdOn) && Objects.equals(message, that.message) && status == that.status;
+        return Objects.equals(count, that.count) && Objects.equals(id, that.id) && Objects.equals(requestId, that.requestId) && Objects.equals(campaignId, that.campaignId) && Objects.equals(attributeList, that.attributeList) && Objects.equals(owner, that.owner) && Objects.equals(createdOn, that.createdOn) && Objects.equals(message, that.message) && Objects.equals(status, that.status);
     }
 
     @Override
@@ -0,0 +1,111 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+/**
+ * Ledger encoding of {@link UserNotification}. JSON fields are written in alphabetical order; the compact field
+ * order is part of the stored format: append new fields at the end and never reorder existing ones.
+ */
+final class UserNotificationCodec extends LedgerCodec<UserNotification>
+        implements PatchableCodec<UserNotification> {
+
+    static final UserNotificationCodec INSTANCE = new UserNotificationCodec();
+
+    private UserNotificationCodec() {
+        super(320);
+    }
+
+    @Override
+    void writeJson(final CanonicalJson.Writer out, final UserNotification value) {
+        out.field("attributeList", value.getAttributeList())
+                .field("campaignId", value.getCampaignId())
+                .field("count", value.getCount())
+                .field("createdOn", value.getCreatedOn())
+                .field("id", value.getId())
+                .field("message", value.getMessage())
+                .field("owner", value.getOwner())
+                .field("requestId", value.getRequestId())
+                .field("status", value.getStatus());
+    }
+
+    @Override
+    UserNotification readJson(final CanonicalJson.Reader in) {
+        return readJson(in, null);
+    }
+
+    @Override
+    public UserNotification readJson(final CanonicalJson.Reader in, final UserNotification base) {
+        String id = base == null ? null : base.getId();
+        String requestId = base == null ? null : base.getRequestId();
+        String campaignId = base == null ? null : base.getCampaignId();
+        String count = base == null ? null : base.getCount();
+        String attributeList = base == null ? null : base.getAttributeList();
+        String owner = base == null ? null : base.getOwner();
+        String createdOn = base == null ? null : base.getCreatedOn();
+        String message = base == null ? null : base.getMessage();
+        String status = base == null ? null : base.getStatus();
+
+        in.beginObject();
+        while (in.hasNextField()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = in.readString();
+                    break;
+                case "requestId":
+                    requestId = in.readString();
+                    break;
+                case "campaignId":
+                    campaignId = in.readString();
+                    break;
+                case "count":
+                    count = in.readString();
+                    break;
+                case "attributeList":
+                    attributeList = in.readString();
+                    break;
+                case "owner":
+                    owner = in.readString();
+                    break;
+                case "createdOn":
+                    createdOn = in.readString();
+                    break;
+                case "message":
+                    message = in.readString();
+                    break;
+                case "status":
+                    status = in.readString();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+
+        return new UserNotification(id, requestId, campaignId, count, attributeList, owner, createdOn, message, status);
+    }
+
+    @Override
+    int fieldCount() {
+        return 9;
+    }
+
+    @Override
+    void writeFields(final CompactWriter out, final UserNotification value) {
+        out.writeString(value.getId());
+        out.writeString(value.getRequestId());
+        out.writeString(value.getCampaignId());
+        out.writeString(value.getCount());
+        out.writeString(value.getAttributeList());
+        out.writeString(value.getOwner());
+        out.writeString(value.getCreatedOn());
+        out.writeString(value.getMessage());
+        out.writeString(value.getStatus());
+    }
+
+    @Override
+    UserNotification readFields(final CompactReader in) {
+        return new UserNotification(in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readString(), in.readString(), in.readString(), in.readString(), in.readString());
+    }
+}
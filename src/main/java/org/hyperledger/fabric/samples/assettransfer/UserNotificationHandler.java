@@ -1,16 +1,17 @@
 package org.hyperledger.fabric.samples.assettransfer;
 
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 
 import org.hyperledger.fabric.contract.Context;
-import org.hyperledger.fabric.contract.ContractInterface;
 import org.hyperledger.fabric.contract.annotation.*;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
-import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
 
 import com.owlike.genson.Genson;
 
@@ -27,13 +28,53 @@ import com.owlike.genson.Genson;
                         email = "b.transfer@example.com",
                         name = "Notification Transfer",
                         url = "https://hyperledger.example.com")))
-public final class UserNotificationHandler implements ContractInterface {
+public final class UserNotificationHandler implements TransactionContextContract {
 
     private final Genson genson = new Genson();
 
+    private static final RateLimitedLogger KEY_LOG =
+            ContractLogging.getRateLimitedLogger(UserNotificationHandler.class);
+
+    private final UserNotificationCodec codec = UserNotificationCodec.INSTANCE;
+
+    private static final CompositeIndex<UserNotification> OWNER_INDEX =
+            new CompositeIndex<>("owner~notification", UserNotification::getOwner, UserNotification::getId);
+
+    private static final CompositeIndex<UserNotification> REQUEST_INDEX =
+            new CompositeIndex<>("request~notification", UserNotification::getRequestId, UserNotification::getId);
+
+    private static final CompositeIndex<UserNotification> CAMPAIGN_INDEX =
+            new CompositeIndex<>("campaign~notification", UserNotification::getCampaignId, UserNotification::getId);
+
+    private static final DeltaCounter<UserNotification> OWNER_TOTAL =
+            new DeltaCounter<>("owner~notifications", UserNotification::getOwner, notification -> true);
+
+    private static final DeltaCounter<UserNotification> OWNER_UNREAD =
+            new DeltaCounter<>("owner~unread", UserNotification::getOwner, UserNotificationHandler::isUnread);
+
+    private static final DeltaCounter<UserNotification> CAMPAIGN_TOTAL =
+            new DeltaCounter<>("campaign~notifications", UserNotification::getCampaignId, notification -> true);
+
+    private static final DeltaCounter<UserNotification> CAMPAIGN_UNREAD =
+            new DeltaCounter<>("campaign~unread", UserNotification::getCampaignId, UserNotificationHandler::isUnread);
+
+    private static final TimeIndex<UserNotification> CREATED_INDEX =
+            new TimeIndex<>("createdon_notification_", UserNotification::getCreatedOn, UserNotification::getId);
+
+    private static final FieldExtractor STATUS = new FieldExtractor("status");
+
+    private static final FieldExtractor INDEXED_FIELDS = new FieldExtractor("owner", "requestId", "campaignId", "createdOn");
+
+    private static final List<DeltaCounter<UserNotification>> COUNTERS =
+            Arrays.asList(OWNER_TOTAL, OWNER_UNREAD, CAMPAIGN_TOTAL, CAMPAIGN_UNREAD);
+
     private enum AssetTransferErrors {
         NOTIFICATION_NOT_FOUND,
-        NOTIFICATION_ALREADY_EXISTS
+        NOTIFICATION_ALREADY_EXISTS,
+        INVALID_PATCH,
+        INVALID_TIME_RANGE,
+        INVALID_BATCH,
+        INVALID_BOOKMARK
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -62,21 +103,37 @@ public final class UserNotificationHandler implements ContractInterface {
         UserNotification notification = new UserNotification("notification_" + notificationId, requestId, campaignId, count,
                 attributeList, owner, createdOn, message, status);
 
-        String notificationJson = genson.serialize(notification);
-        ctx.getStub().putStringState("notification_" + notificationId, notificationJson);
-
-        return notification;
+        return putAsset(ctx, null, notification);
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public UserNotification ReadNotification(final Context ctx, final String notificationId) {
-        byte[] notificationBytes = ctx.getStub().getState("notification_" + notificationId);
-        if (notificationBytes == null || notificationBytes.length == 0) {
+        UserNotification notification = readAsset(ctx, "notification_" + notificationId);
+        if (notification == null) {
             String errorMessage = String.format("Notification %s does not exist", notificationId);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
         }
 
-        return genson.deserialize(new String(notificationBytes, StandardCharsets.UTF_8), UserNotification.class);
+        return notification;
+    }
+
+    /**
+     * Retrieves several notifications in one call.
+     *
+     * @param notificationIdsJson a JSON array of notification ids, with or without the notification_ prefix
+     * @return the notifications found and the ids that were not, as {"records":[...],"missing":[...]}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String ReadNotifications(final Context ctx, final String notificationIdsJson) {
+        List<String> notificationIds;
+        try {
+            notificationIds = MultiGet.parseIds(notificationIdsJson);
+        } catch (IllegalArgumentException e) {
+            throw new ChaincodeException(e.getMessage(), AssetTransferErrors.INVALID_BATCH.toString());
+        }
+
+        return MultiGet.read(ctx.getStub(), codec, notificationIds,
+                UserNotificationHandler::addNotificationPrefixIfNotPresent);
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
@@ -92,142 +149,443 @@ public final class UserNotificationHandler implements ContractInterface {
             final String message,
             final String status
     ) {
-        if (!NotificationExists(ctx, notificationId)) {
+        String key = addNotificationPrefixIfNotPresent(notificationId);
+        UserNotification previous = readAsset(ctx, key);
+
+        if (previous == null) {
             String errorMessage = String.format("Notification %s does not exist", notificationId);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
         }
 
-        UserNotification notification = new UserNotification(addNotificationPrefixIfNotPresent(notificationId), requestId, campaignId, count,
+        UserNotification notification = new UserNotification(key, requestId, campaignId, count,
                 attributeList, owner, createdOn, message, status);
 
-        String notificationJson = genson.serialize(notification);
-        ctx.getStub().putStringState(addNotificationPrefixIfNotPresent(notificationId), notificationJson);
+        return putAsset(ctx, previous, notification);
+    }
 
-        return notification;
+    /**
+     * Changes some fields of a notification, e.g. {@code {"status":"read"}}, without resending the others; a field
+     * set to null is cleared. Nothing is written when the patch leaves the notification as it was.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public UserNotification PatchNotification(final Context ctx, final String notificationId, final String patchJson) {
+        String key = addNotificationPrefixIfNotPresent(notificationId);
+        UserNotification previous = readAsset(ctx, key);
+
+        if (previous == null) {
+            String errorMessage = String.format("Notification %s does not exist", notificationId);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
+        }
+
+        UserNotification patched;
+        try {
+            patched = codec.merge(previous, patchJson);
+        } catch (RuntimeException e) {
+            throw new ChaincodeException("Patch is not a JSON object of notification fields: " + e.getMessage(),
+                    AssetTransferErrors.INVALID_PATCH.toString());
+        }
+
+        if (!key.equals(patched.getId())) {
+            throw new ChaincodeException("The id of a notification cannot be patched",
+                    AssetTransferErrors.INVALID_PATCH.toString());
+        }
+        if (patched.equals(previous)) {
+            return previous;
+        }
+
+        return putAsset(ctx, previous, patched);
     }
 
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteNotification(final Context ctx, final String notificationId) {
-        if (!NotificationExists(ctx, notificationId)) {
+        UserNotification previous = readAsset(ctx, addNotificationPrefixIfNotPresent(notificationId));
+
+        if (previous == null) {
             String errorMessage = String.format("Notification %s does not exist", notificationId);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
         }
 
-        ctx.getStub().delState("notification_" + notificationId);
+        ctx.getStub().delState(previous.getId());
+        ChangeFeed.record(ctx, ChangeFeed.NOTIFICATION, previous.getId(), ChangeFeed.DELETE);
+        AssetEvents.record(ctx, ChangeFeed.NOTIFICATION, AssetEvents.DELETE, previous.getId(), null);
+        updateIndexes(ctx.getStub(), previous, null);
+        updateCounters(ctx, previous, null);
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public UserNotification FindNotificationById(final Context ctx, final String id) {
-        String assetJSON = ctx.getStub().getStringState(addNotificationPrefixIfNotPresent(id));
+        UserNotification notification = readAsset(ctx, addNotificationPrefixIfNotPresent(id));
 
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        if (notification == null) {
             String errorMessage = String.format("Notification %s does not exist", id);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
         }
 
-        return genson.deserialize(assetJSON, UserNotification.class);
+        return notification;
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String FindNotificationsByOwner(final Context ctx, final String owner) {
-        List<UserNotification> matchingNotifications = new ArrayList<>();
-        QueryResultsIterator<KeyValue> results = ctx.getStub().getStateByRange("notification_", "notification_\uFFFF");
+        JsonResultWriter matchingNotifications = findByIndex(ctx, OWNER_INDEX, owner);
 
-        for (KeyValue result : results) {
-            UserNotification notification = genson.deserialize(result.getStringValue(), UserNotification.class);
-            if (notification.getOwner().equals(owner)) {
-                matchingNotifications.add(notification);
-            }
-        }
-
-        return genson.serialize(matchingNotifications);
+        return matchingNotifications.endArray().toString();
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String FindNotificationByRequestId(final Context ctx, final String requestId) {
-        List<UserNotification> matchingAssets = new ArrayList<>();
+        JsonResultWriter matchingAssets = findByIndex(ctx, REQUEST_INDEX, requestId);
 
-        QueryResultsIterator<KeyValue> results = ctx.getStub().getStateByRange("notification_", "notification_\uFFFF");
-
-        for (KeyValue result : results) {
-            UserNotification userNotification = genson.deserialize(result.getStringValue(), UserNotification.class);
-            if (Boolean.TRUE.equals(userNotification.getRequestId().equals(requestId))) {
-                matchingAssets.add(userNotification);
-            }
-        }
-
-        if (matchingAssets.isEmpty()) {
+        if (matchingAssets.elementCount() == 0) {
             String errorMessage = String.format("No non-deleted assets found for Request Id %s", requestId);
-            System.out.println(errorMessage);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
         }
 
-        return genson.serialize(matchingAssets);
+        return matchingAssets.endArray().toString();
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String FindNotificationByCampaignId(final Context ctx, final String campaignId) {
+        JsonResultWriter matchingAssets = findByIndex(ctx, CAMPAIGN_INDEX, campaignId);
+
+        if (matchingAssets.elementCount() == 0) {
+            String errorMessage = String.format("No non-deleted assets found for Campaign Id %s", campaignId);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
+        }
 
-        List<UserNotification> matchingAssets = new ArrayList<>();
-        QueryResultsIterator<KeyValue> results = ctx.getStub().getStateByRange("", "");
+        return matchingAssets.endArray().toString();
+    }
 
-        for (KeyValue result : results) {
-            UserNotification userNotification = genson.deserialize(result.getStringValue(), UserNotification.class);
-            if (Boolean.TRUE.equals(userNotification.getCampaignId().equals(campaignId))) {
-                matchingAssets.add(userNotification);
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindNotificationByOrgId(final Context ctx, final String orgId) {
+        JsonResultWriter matchingAssets = findByIndex(ctx, OWNER_INDEX, orgId);
+
+        if (matchingAssets.elementCount() == 0) {
+            String errorMessage = String.format("No non-deleted assets found for Org Id %s", orgId);
+            KEY_LOG.log(Level.INFO, () -> errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
+        }
+
+        return matchingAssets.endArray().toString();
+    }
+
+    /**
+     * Copies the notifications an index points to into an open JSON array.
+     */
+    private JsonResultWriter findByIndex(final Context ctx, final CompositeIndex<UserNotification> index, final String value) {
+        ChaincodeStub stub = ctx.getStub();
+        JsonResultWriter matchingNotifications = new JsonResultWriter().beginArray();
+
+        try (QueryResults<KeyValue> indexEntries = QueryResults.of(index.entries(stub, value))) {
+            for (KeyValue indexEntry : indexEntries) {
+                byte[] notification = stub.getState(CompositeIndex.recordKey(stub, indexEntry));
+                if (notification != null && notification.length > 0) {
+                    matchingNotifications.value(codec.toJson(notification));
+                }
             }
         }
 
-        if (matchingAssets.isEmpty()) {
-            String errorMessage = String.format("No non-deleted assets found for Campaign Id %s", campaignId);
-            System.out.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
+        return matchingNotifications;
+    }
+
+    private UserNotification putAsset(final Context ctx, final UserNotification previous, final UserNotification userNotification) {
+        byte[] value = codec.encode(userNotification);
+        ctx.getStub().putState(userNotification.getId(), value);
+        ChangeFeed.record(ctx, ChangeFeed.NOTIFICATION, userNotification.getId(), ChangeFeed.PUT);
+        AssetEvents.record(ctx, ChangeFeed.NOTIFICATION, previous == null ? AssetEvents.CREATE : AssetEvents.UPDATE,
+                userNotification.getId(), codec.toJson(value));
+        updateIndexes(ctx.getStub(), previous, userNotification);
+        updateCounters(ctx, previous, userNotification);
+
+        return userNotification;
+    }
+
+    private UserNotification readAsset(final Context ctx, final String key) {
+        byte[] notificationBytes = ctx.getStub().getState(key);
+
+        if (notificationBytes == null || notificationBytes.length == 0) {
+            return null;
         }
 
-        return genson.serialize(matchingAssets);
+        return DecodeCache.INSTANCE.decode(codec, notificationBytes);
+    }
+
+    /**
+     * Keeps the owner, requestId, campaignId and createdOn indexes in step with a notification; entries only move
+     * when the indexed field changes.
+     */
+    private static void updateIndexes(final ChaincodeStub stub, final UserNotification previous, final UserNotification current) {
+        OWNER_INDEX.update(stub, previous, current);
+        REQUEST_INDEX.update(stub, previous, current);
+        CAMPAIGN_INDEX.update(stub, previous, current);
+        CREATED_INDEX.update(stub, previous, current);
+    }
+
+    /**
+     * Keeps the total and unread counts per owner and per campaign in step with a notification.
+     */
+    private static void updateCounters(final Context ctx, final UserNotification previous, final UserNotification current) {
+        OWNER_TOTAL.update(ctx, previous, current);
+        OWNER_UNREAD.update(ctx, previous, current);
+        CAMPAIGN_TOTAL.update(ctx, previous, current);
+        CAMPAIGN_UNREAD.update(ctx, previous, current);
+    }
+
+    private static boolean isUnread(final UserNotification notification) {
+        return isUnread(notification.getStatus());
+    }
+
+    private static boolean isUnread(final String status) {
+        return "unread".equalsIgnoreCase(status);
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String FindNotificationByOrgId(final Context ctx, final String orgId) {
-        List<UserNotification> matchingAssets = new ArrayList<>();
+    public String GetNotificationCountsByOwner(final Context ctx, final String owner) {
+        return counts("owner", owner, OWNER_TOTAL.get(ctx, owner), OWNER_UNREAD.get(ctx, owner));
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetNotificationCountsByCampaign(final Context ctx, final String campaignId) {
+        return counts("campaignId", campaignId, CAMPAIGN_TOTAL.get(ctx, campaignId),
+                CAMPAIGN_UNREAD.get(ctx, campaignId));
+    }
 
-        QueryResultsIterator<KeyValue> results = ctx.getStub().getStateByRange("notification_", "notification_\uFFFF");
+    /**
+     * Counts the notifications of an owner per status, reading only the status of each stored value. Unlike
+     * GetNotificationCountsByOwner this reads every notification of the owner, and splits the count by all statuses.
+     *
+     * @param ctx the transaction context
+     * @param owner the owner to look up
+     * @return {"owner":...,"total":n,"byStatus":{"status":n, ...}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountNotificationsByOwner(final Context ctx, final String owner) {
+        return OWNER_INDEX.countByField(ctx.getStub(), owner, codec, STATUS).toJson("owner", owner, "byStatus");
+    }
+
+    /**
+     * Counts the notifications of a campaign per status; see CountNotificationsByOwner.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountNotificationsByCampaign(final Context ctx, final String campaignId) {
+        return CAMPAIGN_INDEX.countByField(ctx.getStub(), campaignId, codec, STATUS)
+                .toJson("campaignId", campaignId, "byStatus");
+    }
+
+    /**
+     * Counts the notifications of a data request per status; see CountNotificationsByOwner.
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountNotificationsByRequestId(final Context ctx, final String requestId) {
+        return REQUEST_INDEX.countByField(ctx.getStub(), requestId, codec, STATUS)
+                .toJson("requestId", requestId, "byStatus");
+    }
+
+    /**
+     * Counts the notifications of every owner in one pass over the owner index, without reading them.
+     *
+     * @param ctx the transaction context
+     * @return {"total":n,"byOwner":{"owner":n, ...}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountNotificationsPerOwner(final Context ctx) {
+        return OWNER_INDEX.countByValue(ctx.getStub()).toJson(null, null, "byOwner");
+    }
+
+    /**
+     * Counts the notifications of every campaign in one pass over the campaign index, without reading them.
+     *
+     * @param ctx the transaction context
+     * @return {"total":n,"byCampaign":{"campaignId":n, ...}}
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String CountNotificationsPerCampaign(final Context ctx) {
+        return CAMPAIGN_INDEX.countByValue(ctx.getStub()).toJson(null, null, "byCampaign");
+    }
+
+    private String counts(final String field, final String value, final long total, final long unread) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put(field, value);
+        response.put("total", total);
+        response.put("unread", unread);
+        return genson.serialize(response);
+    }
+
+    /**
+     * Folds the per-transaction deltas of the notification counters into their base values, at most maxDeltas per
+     * transaction. Run it periodically, and again right away while it reports a full batch.
+     *
+     * @param ctx the transaction context
+     * @param maxDeltas the maximum number of deltas to fold
+     * @return the number of deltas folded
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CompactNotificationCounters(final Context ctx, final int maxDeltas) {
+        ChaincodeStub stub = ctx.getStub();
+        int folded = 0;
 
-        for (KeyValue result : results) {
-            UserNotification userNotification = genson.deserialize(result.getStringValue(), UserNotification.class);
-            if (Boolean.TRUE.equals(userNotification.getOwner().equals(orgId))) {
-                matchingAssets.add(userNotification);
+        for (DeltaCounter<UserNotification> counter : COUNTERS) {
+            if (folded < maxDeltas) {
+                folded += counter.compact(stub, maxDeltas - folded);
             }
         }
 
-        if (matchingAssets.isEmpty()) {
-            String errorMessage = String.format("No non-deleted assets found for Org Id %s", orgId);
-            System.out.println(errorMessage);
-            throw new ChaincodeException(errorMessage, AssetTransferErrors.NOTIFICATION_NOT_FOUND.toString());
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("folded", folded);
+        return genson.serialize(response);
+    }
+
+    /**
+     * Recounts the notifications of an owner from the owner index, e.g. for notifications stored before the counters
+     * existed. Run BackfillNotificationIndexes first.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String RebuildNotificationCountsByOwner(final Context ctx, final String owner) {
+        return recount(ctx, "owner", OWNER_INDEX, owner, OWNER_TOTAL, OWNER_UNREAD);
+    }
+
+    /**
+     * Recounts the notifications of a campaign from the campaign index; see RebuildNotificationCountsByOwner.
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String RebuildNotificationCountsByCampaign(final Context ctx, final String campaignId) {
+        return recount(ctx, "campaignId", CAMPAIGN_INDEX, campaignId, CAMPAIGN_TOTAL, CAMPAIGN_UNREAD);
+    }
+
+    private String recount(final Context ctx, final String field, final CompositeIndex<UserNotification> index,
+                           final String value, final DeltaCounter<UserNotification> total,
+                           final DeltaCounter<UserNotification> unread) {
+        ChaincodeStub stub = ctx.getStub();
+        long totalCount = 0;
+        long unreadCount = 0;
+
+        // Only the status is needed, so it is read from the stored bytes instead of decoding each notification
+        try (QueryResults<KeyValue> indexEntries = QueryResults.of(index.entries(stub, value))) {
+            for (KeyValue indexEntry : indexEntries) {
+                byte[] notification = stub.getState(CompositeIndex.recordKey(stub, indexEntry));
+                if (notification != null && notification.length > 0) {
+                    totalCount++;
+                    if (isUnread(STATUS.extractFirst(codec, notification))) {
+                        unreadCount++;
+                    }
+                }
+            }
         }
 
-        return genson.serialize(matchingAssets);
+        total.reset(ctx, value, totalCount);
+        unread.reset(ctx, value, unreadCount);
+        return counts(field, value, totalCount, unreadCount);
     }
 
-    private UserNotification putAsset(final Context ctx, final UserNotification userNotification) {
-        String sortedJson = genson.serialize(userNotification);
-        ctx.getStub().putStringState(userNotification.getRequestId(), sortedJson);
+    /**
+     * Returns the key a scan of notifications resumes from: the bookmark of the previous call, or the first
+     * notification when it is empty. Bookmarks outside the notification keys are rejected.
+     */
+    private static String resumeKey(final String bookmark) {
+        if (bookmark == null || bookmark.isEmpty()) {
+            return "notification_";
+        }
+        if (!bookmark.startsWith("notification_")) {
+            throw new ChaincodeException(String.format("Bookmark %s is not a notification key", bookmark),
+                    AssetTransferErrors.INVALID_BOOKMARK.toString());
+        }
+        return bookmark;
+    }
 
-        return userNotification;
+    /**
+     * Writes index entries for notifications stored before the indexes existed. The scan is bounded to pageSize
+     * notifications per transaction, at most CHAINCODE_BATCH_MAX_SIZE; call again with the returned bookmark until
+     * it comes back empty.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of notifications to visit
+     * @param bookmark the key to resume from, or empty to start at the first notification
+     * @return the number of notifications visited and the bookmark for the next call
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String BackfillNotificationIndexes(final Context ctx, final int pageSize, final String bookmark) {
+        ChaincodeStub stub = ctx.getStub();
+        String startKey = resumeKey(bookmark);
+        int limit = pageSize <= 0 ? ChaincodeConfig.BATCH_MAX_SIZE : Math.min(pageSize, ChaincodeConfig.BATCH_MAX_SIZE);
+        String nextBookmark = "";
+        int visited = 0;
+
+        // Paginated range queries are rejected in submit transactions, so the page is cut here instead
+        try (QueryResults<KeyValue> results = QueryResults.of(stub.getStateByRange(startKey, "notification_\uFFFF"))) {
+            for (KeyValue result : results) {
+                if (visited == limit) {
+                    nextBookmark = result.getKey();
+                    break;
+                }
+                visited++;
+
+                String[] indexed = INDEXED_FIELDS.extract(codec, result.getValue());
+                OWNER_INDEX.put(stub, indexed[0], result.getKey());
+                REQUEST_INDEX.put(stub, indexed[1], result.getKey());
+                CAMPAIGN_INDEX.put(stub, indexed[2], result.getKey());
+                CREATED_INDEX.put(stub, indexed[3], result.getKey());
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("visited", visited);
+        response.put("bookmark", nextBookmark);
+        return genson.serialize(response);
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public String GetAllUserNotifications(final Context ctx) {
-        List<UserNotification> notifications = new ArrayList<>();
-        QueryResultsIterator<KeyValue> results = ctx.getStub().getStateByRange("notification_", "notification_\uFFFF");
+        return JsonResultWriter.writeArray(ctx.getStub().getStateByRange("notification_", "notification_\uFFFF"), codec);
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllUserNotificationsPaged(final Context ctx, final int pageSize, final String bookmark, final int maxBytes) {
+        return QueryPage.range(ctx.getStub(), codec, "notification_", "notification_\uFFFF", pageSize, bookmark, maxBytes);
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindNotificationsByOwnerPaged(final Context ctx, final String owner, final int pageSize,
+                                                final String bookmark, final int maxBytes) {
+        return QueryPage.index(ctx.getStub(), codec, OWNER_INDEX, owner, pageSize, bookmark, maxBytes);
+    }
+
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindNotificationsByRequestIdPaged(final Context ctx, final String requestId, final int pageSize,
+                                                    final String bookmark, final int maxBytes) {
+        return QueryPage.index(ctx.getStub(), codec, REQUEST_INDEX, requestId, pageSize, bookmark, maxBytes);
+    }
 
-        for (KeyValue result : results) {
-            UserNotification notification = genson.deserialize(result.getStringValue(), UserNotification.class);
-            notifications.add(notification);
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindNotificationsByCampaignIdPaged(final Context ctx, final String campaignId, final int pageSize,
+                                                     final String bookmark, final int maxBytes) {
+        return QueryPage.index(ctx.getStub(), codec, CAMPAIGN_INDEX, campaignId, pageSize, bookmark, maxBytes);
+    }
+
+    /**
+     * Retrieves one page of the notifications whose createdOn lies between from (inclusive) and to (exclusive),
+     * oldest first. Only the index entries inside the window are read.
+     *
+     * @param ctx the transaction context
+     * @param from the start of the window, as an ISO-8601 timestamp or epoch milliseconds
+     * @param to the end of the window, in the same forms
+     * @param pageSize the maximum number of notifications to return
+     * @param bookmark the bookmark returned by the previous page, or empty for the first page
+     * @param maxBytes the maximum size of the returned records in bytes
+     * @return the notifications of the page, the bookmark of the next page and the number returned
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FindNotificationsCreatedBetween(final Context ctx, final String from, final String to,
+                                                  final int pageSize, final String bookmark, final int maxBytes) {
+        Instant start = TimeIndex.parse(from);
+        Instant end = TimeIndex.parse(to);
+        if (start == null || end == null || start.isAfter(end)) {
+            throw new ChaincodeException(String.format("Invalid time window %s to %s", from, to),
+                    AssetTransferErrors.INVALID_TIME_RANGE.toString());
         }
 
-        return genson.serialize(notifications);
+        return QueryPage.timeRange(ctx.getStub(), codec, CREATED_INDEX, start, end, pageSize, bookmark, maxBytes);
     }
 
     @Transaction(intent = Transaction.TYPE.EVALUATE)
@@ -0,0 +1,49 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.hyperledger.fabric.contract.ContractRouter;
+import org.hyperledger.fabric.shim.Chaincode;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.junit.jupiter.api.Test;
+
+public final class ChaincodeLauncherTest {
+
+    @Test
+    public void findsTheContractRouterMethodsItCalls() throws NoSuchMethodException {
+        for (String name : new String[] {"findAllContracts", "getRoutingRegistry", "getTypeRegistry"}) {
+            Method method = ContractRouter.class.getDeclaredMethod(name);
+            assertThat(method.getParameterCount()).isZero();
+        }
+    }
+
+    @Test
+    public void registersTheContractsOfThePackage() {
+        ChaincodeLauncher launcher = new ChaincodeLauncher(new String[] {"--id", "test:1"});
+
+        // The system contract answers GetMetadata from the registries the launcher filled in
+        ChaincodeStub stub = mock(ChaincodeStub.class);
+        String function = "org.hyperledger.fabric:GetMetadata";
+        when(stub.getArgs()).thenReturn(Collections.singletonList(function.getBytes(StandardCharsets.UTF_8)));
+        when(stub.getStringArgs()).thenReturn(Collections.singletonList(function));
+        when(stub.getFunction()).thenReturn(function);
+        when(stub.getTxId()).thenReturn("tx1");
+        when(stub.getCreator()).thenReturn(new InMemoryLedger().newTransaction().getCreator());
+        Chaincode.Response response = launcher.invoke(stub);
+
+        assertThat(response.getStatus()).isEqualTo(Chaincode.Response.Status.SUCCESS);
+        assertThat(response.getStringPayload())
+                .contains("\"dataRequestBlock\"", "\"notificationRequestBlock\"", "\"CostTransactionRequest\"",
+                        "\"GetChangesSince\"");
+    }
+}
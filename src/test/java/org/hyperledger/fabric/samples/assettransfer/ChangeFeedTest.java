@@ -0,0 +1,119 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public final class ChangeFeedTest {
+
+    private final InMemoryLedger ledger = new InMemoryLedger();
+    private final DataTransferRequest contract = new DataTransferRequest();
+
+    /**
+     * Writes data_r1 at 00:00, data_r2 at 01:00 and deletes data_r1 at 02:00; every later transaction runs an hour
+     * after the one before.
+     */
+    @BeforeEach
+    public void writeChanges() {
+        ledger.setClock(Instant.parse("2024-05-01T00:00:00Z"), Duration.ofHours(1));
+        ledger.transaction(contract, ctx -> create(ctx, "r1"));
+        ledger.transaction(contract, ctx -> create(ctx, "r2"));
+        ledger.transaction(contract, ctx -> {
+            contract.DeleteDataRequest(ctx, "r1");
+            return null;
+        });
+    }
+
+    @Test
+    public void pagesThroughTheChangesOfAnAssetType() {
+        JSONObject first = changesSince("", 2);
+        assertThat(changes(first)).containsExactly("put data_r1", "put data_r2");
+        assertThat(first.getBoolean("resyncRequired")).isFalse();
+
+        JSONObject second = changesSince(first.getString("position"), 2);
+        assertThat(changes(second)).containsExactly("delete data_r1");
+
+        JSONObject last = changesSince(second.getString("position"), 2);
+        assertThat(changes(last)).isEmpty();
+        assertThat(last.getString("position")).isEqualTo(second.getString("position"));
+
+        assertThat(changes(changesSince("2024-05-01T01:00:00Z", 10))).containsExactly("put data_r2", "delete data_r1");
+        assertThat(changes(changesSince("1714528800000", 10))).containsExactly("delete data_r1");
+    }
+
+    @Test
+    public void startsAtTheFloorAndFlagsOnlyPositionsBelowIt() {
+        JSONObject before = changesSince("", 10);
+        String firstPosition = before.getJSONArray("changes").getJSONObject(0).getString("position");
+        String secondPosition = before.getJSONArray("changes").getJSONObject(1).getString("position");
+
+        assertThat(json(ctx -> contract.CompactChanges(ctx, ChangeFeed.DATA_REQUEST, "2024-05-01T01:30:00Z", 1)))
+                .isEqualTo("{\"deleted\":1}");
+        assertThat(json(ctx -> contract.CompactChanges(ctx, ChangeFeed.DATA_REQUEST, "2024-05-01T01:30:00Z", 0)))
+                .isEqualTo("{\"deleted\":1}");
+        assertThat(json(ctx -> contract.CompactChanges(ctx, ChangeFeed.DATA_REQUEST, "2024-05-01T01:30:00Z", 0)))
+                .isEqualTo("{\"deleted\":0}");
+
+        JSONObject fresh = changesSince("", 10);
+        assertThat(changes(fresh)).containsExactly("delete data_r1");
+        assertThat(fresh.getBoolean("resyncRequired")).isFalse();
+
+        assertThat(changesSince(secondPosition, 10).getBoolean("resyncRequired")).isFalse();
+        assertThat(changesSince(firstPosition, 10).getBoolean("resyncRequired")).isTrue();
+        assertThat(changesSince("2024-05-01T00:30:00Z", 10).getBoolean("resyncRequired")).isTrue();
+    }
+
+    @Test
+    public void rejectsUnknownAssetTypesAndWatermarks() {
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.GetChangesSince(ctx, "asset", "", 10)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Unknown asset type asset");
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.CompactChanges(ctx, ChangeFeed.DATA_REQUEST, "last week", 10)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not an ISO-8601 timestamp");
+    }
+
+    private JSONObject changesSince(final String position, final int limit) {
+        return new JSONObject(json(ctx -> contract.GetChangesSince(ctx, ChangeFeed.DATA_REQUEST, position, limit)));
+    }
+
+    private static List<String> changes(final JSONObject page) {
+        JSONArray changes = page.getJSONArray("changes");
+        List<String> operations = new ArrayList<>();
+        for (int i = 0; i < changes.length(); i++) {
+            JSONObject change = changes.getJSONObject(i);
+            operations.add(change.getString("op") + " " + change.getString("key"));
+        }
+        return operations;
+    }
+
+    private DataRequest create(final Context ctx, final String requestId) {
+        return contract.CreateDataRequest(ctx, requestId, "description", "2024-01-01T00:00:00Z", null, "creator",
+                "o1", null, null, null, "c1", "campaign", "1", false);
+    }
+
+    /**
+     * Runs a transaction that returns its result as JSON.
+     */
+    private String json(final Function<Context, String> function) {
+        return ledger.transaction(contract, function);
+    }
+}
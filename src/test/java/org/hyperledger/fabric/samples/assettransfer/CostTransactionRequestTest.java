@@ -0,0 +1,241 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public final class CostTransactionRequestTest {
+
+    private final InMemoryLedger ledger = new InMemoryLedger();
+    private final CostTransactionRequest contract = new CostTransactionRequest();
+
+    @Test
+    public void createsAndFindsACostTransfer() {
+        ledger.transaction(contract, ctx -> create(ctx, "t1", "c1", 100.0));
+
+        CampaignTransaction costTransfer = ledger.transaction(contract, ctx -> contract.FindByTransferId(ctx, "t1"));
+        assertThat(costTransfer.getId()).isEqualTo("cost_t1");
+        assertThat(costTransfer.getCampaignId()).isEqualTo("c1");
+        assertThat(costTransfer.getTotalCost()).isEqualTo(100.0);
+        boolean exists = ledger.transaction(contract, ctx -> contract.CostTransferExists(ctx, "t1"));
+        assertThat(exists).isTrue();
+
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> create(ctx, "t1", "c1", 100.0)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("already exists");
+
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindByTransferId(ctx, "t2")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("does not exist");
+    }
+
+    @Test
+    public void createsTheValidItemsOfABatchAndReportsTheOthers() {
+        ledger.transaction(contract, ctx -> create(ctx, "existing", "c1", 1.0));
+
+        JSONObject result = new JSONObject(json(ctx -> contract.CreateCampaignTransactionsBatch(ctx, "["
+                + "{\"id\":\"t1\",\"campaignId\":\"c1\",\"totalCost\":10.5},"
+                + "{\"id\":\"cost_t1\",\"campaignId\":\"c1\"},"
+                + "{\"campaignId\":\"c1\"},"
+                + "{\"id\":\"existing\",\"campaignId\":\"c1\"},"
+                + "null]")));
+
+        assertThat(result.getJSONArray("created").toList()).containsExactly("t1");
+        JSONArray errors = result.getJSONArray("errors");
+        assertThat(errors.length()).isEqualTo(4);
+        assertThat(errors.getJSONObject(0).getString("error")).isEqualTo("Duplicate id in batch");
+        assertThat(errors.getJSONObject(1).getString("error")).isEqualTo("id is required");
+        assertThat(errors.getJSONObject(2).getString("error")).isEqualTo("Asset existing already exists");
+        assertThat(errors.getJSONObject(3).getInt("index")).isEqualTo(4);
+        assertThat(ledger.transaction(contract, ctx -> contract.FindByTransferId(ctx, "t1")).getTotalCost())
+                .isEqualTo(10.5);
+    }
+
+    @Test
+    public void rejectsABatchThatIsNotAJsonArray() {
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.CreateCampaignTransactionsBatch(ctx, "{\"id\":\"t1\"}")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not a JSON array");
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.CreateCampaignTransactionsBatch(ctx, "[]")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Batch is empty");
+    }
+
+    @Test
+    public void pagesThroughAllCostTransfers() {
+        ledger.transaction(contract, ctx -> {
+            for (int i = 0; i < 3; i++) {
+                create(ctx, "t" + i, "c1", i);
+            }
+            return null;
+        });
+
+        JSONObject first = new JSONObject(json(ctx -> contract.GetAllCostTransfersPaged(ctx, 2, "", 0)));
+        assertThat(first.getJSONArray("records").length()).isEqualTo(2);
+        JSONObject second = new JSONObject(json(ctx -> contract.GetAllCostTransfersPaged(ctx, 2,
+                first.getString("bookmark"), 0)));
+        assertThat(second.getJSONArray("records").getJSONObject(0).getString("id")).isEqualTo("cost_t2");
+        assertThat(second.getString("bookmark")).isEmpty();
+        assertThat(new JSONArray(json(ctx -> contract.GetAllCostTransfers(ctx))).length()).isEqualTo(3);
+    }
+
+    @Test
+    public void movesTheCostOfATransferBetweenCampaignSummaries() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "t1", "c1", 100.0);
+            create(ctx, "t2", "c1", 50.0);
+            return null;
+        });
+        ledger.transaction(contract, ctx -> contract.UpdateCampaignTransaction(ctx, "t1", "r1", "c2", 0.25, 0.5, 300L,
+                "email", 80.0, 40.0, 0.1, "0.9", "p1:0.9"));
+
+        CampaignCostSummary first = summary("c1");
+        assertThat(first.getTransactionCount()).isEqualTo(1);
+        assertThat(first.getTotalCost()).isEqualTo(50.0);
+        assertThat(first.getDataCost()).isEqualTo(25.0);
+        assertThat(first.getIntersectionDataCount()).isEqualTo(100);
+
+        CampaignCostSummary second = summary("c2");
+        assertThat(second.getTransactionCount()).isEqualTo(1);
+        assertThat(second.getTotalCost()).isEqualTo(80.0);
+        assertThat(second.getDataCost()).isEqualTo(40.0);
+        assertThat(second.getIntersectionDataCount()).isEqualTo(300);
+    }
+
+    @Test
+    public void subtractsADeletedTransferFromItsCampaignSummary() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "t1", "c1", 100.0);
+            create(ctx, "t2", "c1", 50.0);
+            return null;
+        });
+        ledger.transaction(contract, ctx -> {
+            contract.DeleteCostTransfer(ctx, "t1");
+            return null;
+        });
+
+        assertThat(ledger.get("cost_t1")).isNull();
+        assertThat(summary("c1").getTransactionCount()).isEqualTo(1);
+        assertThat(summary("c1").getTotalCost()).isEqualTo(50.0);
+
+        ledger.transaction(contract, ctx -> {
+            contract.DeleteCostTransfer(ctx, "cost_t2");
+            return null;
+        });
+
+        CampaignCostSummary empty = summary("c1");
+        assertThat(empty.getTransactionCount()).isZero();
+        assertThat(empty.getTotalCost()).isZero();
+        assertThat(ledger.range("cost_", "cost_\uFFFF")).isEmpty();
+    }
+
+    @Test
+    public void backfillsTransfersStoredBeforeTheSummariesOnce() {
+        Map<String, byte[]> stored = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            stored.put("cost_t" + i, CampaignTransactionCodec.INSTANCE.encodeJson(new CampaignTransaction("cost_t" + i,
+                    "r1", "c1", 0.25, 0.5, 10L, "email", 10.0, 5.0, 1.0, "0.9", "p1:0.9")));
+        }
+        ledger.load(stored);
+
+        JSONObject page = new JSONObject(json(ctx -> contract.BackfillCampaignCostSummaries(ctx, 2, "")));
+        assertThat(page.getInt("counted")).isEqualTo(2);
+        assertThat(page.getString("bookmark")).isEqualTo("cost_t2");
+        assertThat(json(ctx -> contract.BackfillCampaignCostSummaries(ctx, 2, "")))
+                .isEqualTo("{\"counted\":0,\"bookmark\":\"cost_t2\"}");
+        assertThat(json(ctx -> contract.BackfillCampaignCostSummaries(ctx, 2, page.getString("bookmark"))))
+                .isEqualTo("{\"counted\":1,\"bookmark\":\"\"}");
+
+        assertThat(summary("c1").getTransactionCount()).isEqualTo(3);
+        assertThat(summary("c1").getTotalCost()).isEqualTo(30.0);
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.BackfillCampaignCostSummaries(ctx, 2, "data_r1")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not a cost transfer key");
+    }
+
+    @Test
+    public void rebuildsASummaryFromItsIndex() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "t1", "c1", 0.1);
+            create(ctx, "t2", "c1", 0.2);
+            return null;
+        });
+
+        CampaignCostSummary rebuilt = ledger.transaction(contract,
+                ctx -> contract.RebuildCampaignCostSummary(ctx, "c1"));
+        assertThat(rebuilt.getTransactionCount()).isEqualTo(2);
+        assertThat(summary("c1").getTotalCost()).isEqualTo(rebuilt.getTotalCost());
+    }
+
+    @Test
+    public void readsSeveralTransfersAndReportsTheMissingIds() {
+        ledger.transaction(contract, ctx -> create(ctx, "t1", "c1", 10.0));
+
+        JSONObject result = new JSONObject(json(ctx -> contract.FindByTransferIds(ctx,
+                "[\"t2\",\"t1\",\"cost_t1\",\"cost_t2\"]")));
+
+        JSONArray records = result.getJSONArray("records");
+        assertThat(records.length()).isEqualTo(1);
+        assertThat(records.getJSONObject(0).getString("id")).isEqualTo("cost_t1");
+        assertThat(result.getJSONArray("missing").toList()).containsExactly("t2");
+
+        StringBuilder ids = new StringBuilder("[");
+        for (int i = 0; i <= ChaincodeConfig.BATCH_MAX_SIZE; i++) {
+            ids.append(i == 0 ? "" : ",").append("\"t").append(i).append('"');
+        }
+        String tooMany = ids.append("]").toString();
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindByTransferIds(ctx, tooMany)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("exceed the maximum");
+    }
+
+    @Test
+    public void countsTransfersWithoutReturningThem() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "t1", "c1", 10.0);
+            create(ctx, "t2", "c1", 20.0);
+            create(ctx, "t3", "c2", 30.0);
+            return null;
+        });
+
+        assertThat(json(ctx -> contract.CountCostTransfersByCampaign(ctx, "c1")))
+                .isEqualTo("{\"campaignId\":\"c1\",\"total\":2,\"byChannel\":{\"email\":2}}");
+        assertThat(json(ctx -> contract.CountCostTransfersPerCampaign(ctx)))
+                .isEqualTo("{\"total\":3,\"byCampaign\":{\"c1\":2,\"c2\":1}}");
+        assertThat(json(ctx -> contract.CountCostTransfersByChannel(ctx)))
+                .isEqualTo("{\"total\":3,\"byChannel\":{\"email\":3}}");
+    }
+
+    private CampaignCostSummary summary(final String campaignId) {
+        return ledger.transaction(contract, ctx -> contract.GetCampaignCostSummary(ctx, campaignId));
+    }
+
+    private CampaignTransaction create(final Context ctx, final String id, final String campaignId,
+                                       final double totalCost) {
+        return contract.CreateCampaignTransaction(ctx, id, "r1", campaignId, 0.25, 0.5, 100L, "email", totalCost,
+                totalCost / 2, 0.1, "0.9", "p1:0.9");
+    }
+
+    /**
+     * Runs a transaction that returns its result as JSON.
+     */
+    private String json(final Function<Context, String> function) {
+        return ledger.transaction(contract, function);
+    }
+}
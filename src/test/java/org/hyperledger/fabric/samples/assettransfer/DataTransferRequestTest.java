@@ -0,0 +1,423 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public final class DataTransferRequestTest {
+
+    private final InMemoryLedger ledger = new InMemoryLedger();
+    private final DataTransferRequest contract = new DataTransferRequest();
+
+    @Test
+    public void pagesThroughAllDataRequestsWithBookmarks() {
+        ledger.transaction(contract, ctx -> {
+            for (int i = 0; i < 5; i++) {
+                create(ctx, "r" + i, "c1");
+            }
+            return null;
+        });
+
+        List<String> requestIds = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String bookmark = "";
+        do {
+            String previous = bookmark;
+            JSONObject page = new JSONObject(json(ctx -> contract.GetAllDataRequestsPaged(ctx, 2, previous, 0)));
+            requestIds.addAll(requestIds(page.getJSONArray("records")));
+            pageSizes.add(page.getInt("fetchedCount"));
+            bookmark = page.getString("bookmark");
+        } while (!bookmark.isEmpty());
+
+        assertThat(requestIds).containsExactly("data_r0", "data_r1", "data_r2", "data_r3", "data_r4");
+        assertThat(pageSizes).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    public void pagesThroughTheCampaignIndex() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "r1", "c1");
+            create(ctx, "r2", "c2");
+            create(ctx, "r3", "c1");
+            create(ctx, "r4", "c1");
+            return null;
+        });
+
+        JSONObject first = new JSONObject(json(ctx -> contract.FindByCampaignIdPaged(ctx, "c1", 2, "", 0)));
+        assertThat(requestIds(first.getJSONArray("records"))).containsExactly("data_r1", "data_r3");
+        assertThat(first.getString("bookmark")).isNotEmpty();
+
+        JSONObject second = new JSONObject(json(ctx -> contract.FindByCampaignIdPaged(ctx, "c1", 2,
+                first.getString("bookmark"), 0)));
+        assertThat(requestIds(second.getJSONArray("records"))).containsExactly("data_r4");
+        assertThat(second.getString("bookmark")).isEmpty();
+    }
+
+    @Test
+    public void createsTheValidItemsOfABatchAndReportsTheOthers() {
+        ledger.transaction(contract, ctx -> create(ctx, "existing", "c1"));
+
+        JSONObject result = new JSONObject(json(ctx -> contract.CreateDataRequestsBatch(ctx, "["
+                + "{\"requestId\":\"b1\",\"campaignId\":\"c1\"},"
+                + "{\"requestId\":\"data_b1\",\"campaignId\":\"c1\"},"
+                + "{\"campaignId\":\"c1\"},"
+                + "{\"requestId\":\"existing\",\"campaignId\":\"c1\"},"
+                + "{\"requestId\":\"b3\",\"campaignId\":\"c2\"}]")));
+
+        assertThat(result.getJSONArray("created").toList()).containsExactly("b1", "b3");
+        JSONArray errors = result.getJSONArray("errors");
+        assertThat(errors.length()).isEqualTo(3);
+        assertThat(errors.getJSONObject(0).getInt("index")).isEqualTo(1);
+        assertThat(errors.getJSONObject(0).getString("error")).isEqualTo("Duplicate requestId in batch");
+        assertThat(errors.getJSONObject(1).getInt("index")).isEqualTo(2);
+        assertThat(errors.getJSONObject(2).getString("error")).isEqualTo("Asset existing already exists");
+
+        assertThat(ledger.get("data_b1")).isNotNull();
+        assertThat(ledger.get("data_b3")).isNotNull();
+        assertThat(requestIds(new JSONArray(json(ctx -> contract.FindByCampaignId(ctx, "c1")))))
+                .containsExactly("data_b1", "data_existing");
+    }
+
+    @Test
+    public void rejectsABatchAboveTheMaximumSize() {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i <= ChaincodeConfig.BATCH_MAX_SIZE; i++) {
+            batch.append(i == 0 ? "" : ",").append("{\"requestId\":\"b").append(i).append("\"}");
+        }
+        String items = batch.append("]").toString();
+
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.CreateDataRequestsBatch(ctx, items)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("exceeds the maximum");
+        assertThat(ledger.size()).isZero();
+    }
+
+    @Test
+    public void movesTheCampaignIndexEntryWhenARecordChangesCampaign() {
+        ledger.transaction(contract, ctx -> create(ctx, "r1", "c1"));
+        ledger.transaction(contract, ctx -> contract.UpdateDataRequest(ctx, "r1", "moved", null, null, null, "o1",
+                null, null, null, "c2", null, null, false));
+
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindByCampaignId(ctx, "c1")))
+                .isInstanceOf(ChaincodeException.class);
+        assertThat(requestIds(new JSONArray(json(ctx -> contract.FindByCampaignId(ctx, "c2")))))
+                .containsExactly("data_r1");
+        assertThat(indexEntries("campaign~request")).containsExactly(indexEntry("campaign~request", "c2", "data_r1"));
+    }
+
+    @Test
+    public void removesIndexEntriesWithTheRecord() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "r1", "c1");
+            create(ctx, "r2", "c1");
+            return null;
+        });
+        ledger.transaction(contract, ctx -> {
+            contract.DeleteDataRequest(ctx, "r1");
+            return null;
+        });
+
+        assertThat(ledger.get("data_r1")).isNull();
+        assertThat(indexEntries("campaign~request")).containsExactly(indexEntry("campaign~request", "c1", "data_r2"));
+    }
+
+    @Test
+    public void leavesSoftDeletedRecordsOutOfTheCampaignIndex() {
+        ledger.transaction(contract, ctx -> create(ctx, "r1", "c1"));
+        ledger.transaction(contract, ctx -> contract.UpdateDataRequest(ctx, "r1", "description", null, null, null,
+                "o1", null, null, null, "c1", null, null, true));
+
+        assertThat(ledger.get("data_r1")).isNotNull();
+        assertThat(indexEntries("campaign~request")).isEmpty();
+    }
+
+    @Test
+    public void patchesOnlyTheFieldsItNames() {
+        ledger.transaction(contract, ctx -> create(ctx, "r1", "c1"));
+        DataRequest patched = ledger.transaction(contract, ctx -> contract.PatchDataRequest(ctx, "r1",
+                "{\"campaignId\":\"c2\",\"campaignName\":null}"));
+
+        assertThat(patched.getCampaignId()).isEqualTo("c2");
+        assertThat(patched.getCampaignName()).isNull();
+        assertThat(patched.getDescription()).isEqualTo("description");
+        assertThat(indexEntries("campaign~request")).containsExactly(indexEntry("campaign~request", "c2", "data_r1"));
+    }
+
+    @Test
+    public void rejectsPatchesThatAreMalformedOrChangeTheRequestId() {
+        ledger.transaction(contract, ctx -> create(ctx, "r1", "c1"));
+
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.PatchDataRequest(ctx, "r1", "{\"requestId\":\"data_r2\"}")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("cannot be patched");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.PatchDataRequest(ctx, "r1", "[]")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Patch is not a JSON object");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.PatchDataRequest(ctx, "r2", "{}")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("does not exist");
+    }
+
+    @Test
+    public void backfillsAtMostTheBatchSizeAndRejectsForeignBookmarks() {
+        ledger.transaction(contract, ctx -> {
+            for (int i = 0; i < 3; i++) {
+                create(ctx, "r" + i, "c1");
+            }
+            return null;
+        });
+
+        JSONObject page = new JSONObject(json(ctx -> contract.BackfillCampaignIndex(ctx, 2, "")));
+        assertThat(page.getInt("indexed")).isEqualTo(2);
+        assertThat(page.getString("bookmark")).isEqualTo("data_r2");
+
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.BackfillCampaignIndex(ctx, 2, "notification_n1")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not a data request key");
+    }
+
+    @Test
+    public void purgesSoftDeletedRecordsOnlyFromDataRequestBookmarks() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "r1", "c1");
+            create(ctx, "r2", "c1");
+            return null;
+        });
+        ledger.transaction(contract, ctx -> contract.PatchDataRequest(ctx, "r1", "{\"deleted\":true}"));
+
+        assertThat(json(ctx -> contract.PurgeDeletedDataRequests(ctx, 0, "")))
+                .isEqualTo("{\"purged\":1,\"bookmark\":\"\"}");
+        assertThat(ledger.get("data_r1")).isNull();
+        assertThat(ledger.get("data_r2")).isNotNull();
+
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.PurgeDeletedDataRequests(ctx, 10, "cost_c1")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not a data request key");
+    }
+
+    @Test
+    public void recordsDecisionsOfApproversAndRejectsOthers() {
+        ledger.transaction(contract, ctx -> contract.CreateDataRequest(ctx, "r1", "d", "2024-04-01T00:00:00Z", null,
+                null, "o1", "a1,a2", "pending,pending", "ap1,ap2", "c1", null, null, false));
+
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.ApproveAttribute(ctx, "r1", "a1", "ap3")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("ap3 is not an approver of r1");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.RejectAttribute(ctx, "r1", "a2", "o1")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not an approver");
+
+        ledger.transaction(contract, ctx -> contract.ApproveAttribute(ctx, "r1", "a1", "ap1"));
+        DataRequest decided = ledger.transaction(contract, ctx -> contract.RejectAttribute(ctx, "r1", "a2", "ap2"));
+        assertThat(decided.getAttributeStatusList()).isEqualTo("approved,rejected");
+
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.ApproveAttribute(ctx, "r1", "a1", "ap2")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Cannot approve a1 of r1");
+    }
+
+    @Test
+    public void listsTheRequestsPendingForAnApprover() {
+        ledger.transaction(contract, ctx -> {
+            contract.CreateDataRequest(ctx, "r1", "d", "2024-04-01T00:00:00Z", null, null, "o1", "a1", "pending",
+                    "ap1,ap2", "c1", null, null, false);
+            contract.CreateDataRequest(ctx, "r2", "d", "2024-04-01T00:00:00Z", null, null, "o1", "a1", "pending",
+                    "ap2", "c1", null, null, false);
+            contract.CreateDataRequest(ctx, "r3", "d", "2024-04-01T00:00:00Z", null, null, "o1", "a1", "approved",
+                    "ap1", "c1", null, null, false);
+            return null;
+        });
+
+        JSONObject first = new JSONObject(json(ctx -> contract.GetPendingForApprover(ctx, "ap1", 10, "", 0)));
+        assertThat(requestIds(first.getJSONArray("records"))).containsExactly("data_r1");
+
+        ledger.transaction(contract, ctx -> contract.ApproveAttribute(ctx, "r1", "a1", "ap2"));
+
+        JSONObject second = new JSONObject(json(ctx -> contract.GetPendingForApprover(ctx, "ap2", 10, "", 0)));
+        assertThat(requestIds(second.getJSONArray("records"))).containsExactly("data_r2");
+        JSONObject third = new JSONObject(json(ctx -> contract.GetPendingForApprover(ctx, "ap1", 10, "", 0)));
+        assertThat(third.getJSONArray("records").length()).isZero();
+    }
+
+    @Test
+    public void expiresAtMostTheBatchSizePerTransaction() {
+        ledger.transaction(contract, ctx -> {
+            for (int i = 0; i <= ChaincodeConfig.BATCH_MAX_SIZE; i++) {
+                contract.CreateDataRequest(ctx, "r" + i, "d", "2024-04-01T00:00:00Z", null, null, "o1", "a1",
+                        "pending", "ap1", "c1", null, null, false);
+            }
+            return null;
+        });
+
+        assertThat(new JSONObject(json(ctx -> contract.ExpirePendingApprovals(ctx, 0))).getInt("requests"))
+                .isEqualTo(ChaincodeConfig.BATCH_MAX_SIZE);
+        assertThat(new JSONObject(json(ctx -> contract.ExpirePendingApprovals(ctx, Integer.MAX_VALUE)))
+                .getInt("requests")).isEqualTo(1);
+        DataRequest expired = ledger.transaction(contract, ctx -> contract.FindByRequestId(ctx, "r0"));
+        assertThat(expired.getAttributeStatusList()).isEqualTo(ApprovalWorkflow.EXPIRED_STATUS.name());
+    }
+
+    @Test
+    public void recordsTheMetricsOfCompletedTransactions() {
+        ledger.transaction(contract, ctx -> create(ctx, "r1", "c1"));
+        ledger.transaction(contract, ctx -> contract.FindByRequestId(ctx, "r1"));
+
+        // The simulator names no function, and the metrics are shared by every test in the process
+        JSONObject metrics = new JSONObject(json(ctx -> contract.GetChaincodeMetrics(ctx))).getJSONObject("unknown");
+        assertThat(metrics.getLong("completed")).isGreaterThanOrEqualTo(2);
+        assertThat(metrics.getLong("started")).isGreaterThanOrEqualTo(metrics.getLong("completed"));
+        assertThat(metrics.getJSONObject("stateWrites").getLong("max")).isPositive();
+        assertThat(metrics.getJSONObject("bytesRead").getLong("sum")).isPositive();
+    }
+
+    @Test
+    public void expiresApprovalsOfRequestsCreatedAtAnyIndexedTimeFormat() {
+        ledger.transaction(contract, ctx -> {
+            contract.CreateDataRequest(ctx, "r1", "d", "2024-04-01T00:00:00Z", null, null, "o1", "a1", "pending",
+                    "ap1", "c1", null, null, false);
+            contract.CreateDataRequest(ctx, "r2", "d", "2024-04-01T02:00:00+02:00", null, null, "o1", "a1",
+                    "pending", "ap1", "c1", null, null, false);
+            contract.CreateDataRequest(ctx, "r3", "d", "1711929600000", null, null, "o1", "a1", "pending", "ap1",
+                    "c1", null, null, false);
+            contract.CreateDataRequest(ctx, "r4", "d", "2024-04-30T00:00:00Z", null, null, "o1", "a1", "pending",
+                    "ap1", "c1", null, null, false);
+            return null;
+        });
+
+        assertThat(json(ctx -> contract.ExpirePendingApprovals(ctx, 10)))
+                .isEqualTo("{\"requests\":3,\"attributes\":3}");
+        DataRequest expired = ledger.transaction(contract, ctx -> contract.FindByRequestId(ctx, "r3"));
+        assertThat(expired.getAttributeStatusList()).isEqualTo(ApprovalWorkflow.EXPIRED_STATUS.name());
+        DataRequest pending = ledger.transaction(contract, ctx -> contract.FindByRequestId(ctx, "r4"));
+        assertThat(pending.getAttributeStatusList()).isEqualTo("pending");
+    }
+
+    @Test
+    public void findsRequestsCreatedInsideAHalfOpenWindow() {
+        ledger.transaction(contract, ctx -> {
+            contract.CreateDataRequest(ctx, "r1", "d", "2024-01-01T00:00:00Z", null, null, "o1", null, null, null,
+                    "c1", null, null, false);
+            contract.CreateDataRequest(ctx, "r2", "d", "2024-01-02T01:00:00+01:00", null, null, "o1", null, null,
+                    null, "c1", null, null, false);
+            contract.CreateDataRequest(ctx, "r3", "d", "1704240000000", null, null, "o1", null, null, null, "c1",
+                    null, null, false);
+            contract.CreateDataRequest(ctx, "r4", "d", "2024-01-02T12:00:00Z", null, null, "o1", null, null, null,
+                    "c1", null, null, true);
+            return null;
+        });
+
+        JSONObject day = new JSONObject(json(ctx -> contract.FindDataRequestsCreatedBetween(ctx,
+                "2024-01-02T00:00:00Z", "2024-01-03T00:00:00Z", 10, "", 0)));
+        assertThat(requestIds(day.getJSONArray("records"))).containsExactly("data_r2");
+
+        JSONObject first = new JSONObject(json(ctx -> contract.FindDataRequestsCreatedBetween(ctx,
+                "1704067200000", "2024-01-03T00:00:00.001Z", 2, "", 0)));
+        assertThat(requestIds(first.getJSONArray("records"))).containsExactly("data_r1", "data_r2");
+        JSONObject second = new JSONObject(json(ctx -> contract.FindDataRequestsCreatedBetween(ctx,
+                "1704067200000", "2024-01-03T00:00:00.001Z", 2, first.getString("bookmark"), 0)));
+        assertThat(requestIds(second.getJSONArray("records"))).containsExactly("data_r3");
+        assertThat(second.getString("bookmark")).isEmpty();
+
+        JSONObject empty = new JSONObject(json(ctx -> contract.FindDataRequestsCreatedBetween(ctx,
+                "2024-01-01T00:00:00Z", "2024-01-01T00:00:00Z", 10, "", 0)));
+        assertThat(empty.getJSONArray("records").length()).isZero();
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindDataRequestsCreatedBetween(ctx,
+                "2024-01-02T00:00:00Z", "2024-01-01T00:00:00Z", 10, "", 0)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Invalid time window");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindDataRequestsCreatedBetween(ctx,
+                "yesterday", "2024-01-01T00:00:00Z", 10, "", 0)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Invalid time window");
+    }
+
+    @Test
+    public void readsSeveralRequestsAndReportsTheMissingIds() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "r1", "c1");
+            create(ctx, "r2", "c1");
+            return null;
+        });
+
+        JSONObject result = new JSONObject(json(ctx -> contract.FindByRequestIds(ctx,
+                "[\"r2\",\"data_r1\",\"r9\",\"r1\",\"data_r2\",\"r9\"]")));
+
+        assertThat(requestIds(result.getJSONArray("records"))).containsExactly("data_r2", "data_r1");
+        assertThat(result.getJSONArray("missing").toList()).containsExactly("r9");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindByRequestIds(ctx, "[]")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("No ids given");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindByRequestIds(ctx, "[\"\"]")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("must not be null or empty");
+    }
+
+    @Test
+    public void countsRequestsWithoutReturningThem() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "r1", "c1");
+            create(ctx, "r2", "c1");
+            create(ctx, "r3", "c2");
+            return null;
+        });
+        ledger.transaction(contract, ctx -> contract.PatchDataRequest(ctx, "r3", "{\"deleted\":true}"));
+
+        assertThat(json(ctx -> contract.CountDataRequestsByCampaign(ctx, "c1")))
+                .isEqualTo("{\"campaignId\":\"c1\",\"total\":2}");
+        assertThat(json(ctx -> contract.CountDataRequestsByCampaign(ctx, "c2")))
+                .isEqualTo("{\"campaignId\":\"c2\",\"total\":0}");
+        assertThat(json(ctx -> contract.CountDataRequestsPerCampaign(ctx)))
+                .isEqualTo("{\"total\":2,\"byCampaign\":{\"c1\":2}}");
+        assertThat(json(ctx -> contract.CountDataRequests(ctx)))
+                .isEqualTo("{\"total\":3,\"byState\":{\"active\":2,\"deleted\":1}}");
+    }
+
+    private DataRequest create(final Context ctx, final String requestId, final String campaignId) {
+        return contract.CreateDataRequest(ctx, requestId, "description", "2024-01-01T00:00:00Z",
+                "2024-01-01T00:00:00Z", "creator", "o1", null, null, null, campaignId, "campaign", "1", false);
+    }
+
+    private List<String> indexEntries(final String objectType) {
+        String prefix = indexEntry(objectType);
+        return new ArrayList<>(ledger.range(prefix, prefix + "\uFFFF").keySet());
+    }
+
+    private static String indexEntry(final String objectType, final String... attributes) {
+        StringBuilder key = new StringBuilder("\u0000").append(objectType).append('\u0000');
+        for (String attribute : attributes) {
+            key.append(attribute).append('\u0000');
+        }
+        return key.toString();
+    }
+
+    private static List<String> requestIds(final JSONArray records) {
+        List<String> requestIds = new ArrayList<>();
+        for (int i = 0; i < records.length(); i++) {
+            requestIds.add(records.getJSONObject(i).getString("requestId"));
+        }
+        return requestIds;
+    }
+
+    /**
+     * Runs a transaction that returns its result as JSON.
+     */
+    private String json(final Function<Context, String> function) {
+        return ledger.transaction(contract, function);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.contract.ContractInterface;
+
+/**
+ * The committed world state of a simulated channel, with the MVCC validation a peer applies when it commits a block.
+ *
+ * <p>Transactions are simulated with {@link #newTransaction()} against the state committed so far, exactly like
+ * endorsement: reads see neither the transaction's own writes nor those of other transactions that have not been
+ * committed yet. Committing validates each transaction of a block in order. A transaction is invalidated when a key
+ * it read has been written since (an MVCC read conflict), or when a range it scanned would now return different keys
+ * (a phantom read). Only valid transactions are applied. Simulating several transactions before committing them in
+ * one block therefore reproduces the conflicts of concurrent clients.
+ *
+ * <p>State lives in a sorted map, so it holds millions of keys and scans cost what they cost on a peer: proportional
+ * to the keys returned. The ledger is not thread-safe; concurrency is simulated by interleaving transactions.
+ */
+final class InMemoryLedger {
+
+    /**
+     * Outcome of validating a transaction, named after the peer's validation codes.
+     */
+    enum ValidationCode {
+        VALID,
+        MVCC_READ_CONFLICT,
+        PHANTOM_READ_CONFLICT
+    }
+
+    /**
+     * The height at which a key was last written, as in Fabric: block number and position in the block.
+     */
+    static final class Version {
+
+        private final long blockNum;
+        private final int txNum;
+
+        Version(final long blockNum, final int txNum) {
+            this.blockNum = blockNum;
+            this.txNum = txNum;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Version)) {
+                return false;
+            }
+            Version other = (Version) obj;
+            return blockNum == other.blockNum && txNum == other.txNum;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(blockNum, txNum);
+        }
+
+        @Override
+        public String toString() {
+            return blockNum + ":" + txNum;
+        }
+    }
+
+    static final class VersionedValue {
+
+        private final byte[] value;
+        private final Version version;
+
+        VersionedValue(final byte[] value, final Version version) {
+            this.value = value;
+            this.version = version;
+        }
+
+        byte[] getValue() {
+            return value;
+        }
+
+        Version getVersion() {
+            return version;
+        }
+    }
+
+    private final NavigableMap<String, VersionedValue> state = new TreeMap<>();
+    private long height;
+    private long txCounter;
+    private Instant clock = Instant.parse("2024-05-01T00:00:00Z");
+    private Duration tick = Duration.ofMillis(1);
+    private int committed;
+    private int mvccConflicts;
+    private int phantomConflicts;
+
+    /**
+     * Starts simulating a transaction against the current state. Each transaction gets a new id and a timestamp one
+     * tick after the previous one.
+     */
+    SimulatedChaincodeStub newTransaction() {
+        txCounter++;
+        Instant timestamp = clock;
+        clock = clock.plus(tick);
+        return new SimulatedChaincodeStub(this, "tx" + txCounter, timestamp);
+    }
+
+    /**
+     * Simulates one transaction of a contract through the same context hooks as on a peer, without committing it.
+     */
+    SimulatedChaincodeStub simulate(final ContractInterface contract, final Function<Context, ?> function) {
+        SimulatedChaincodeStub stub = newTransaction();
+        Context ctx = contract.createContext(stub);
+        contract.beforeTransaction(ctx);
+        contract.afterTransaction(ctx, function.apply(ctx));
+        return stub;
+    }
+
+    /**
+     * Runs one transaction of a contract through the same context hooks as on a peer, and commits it in a block of
+     * its own if it wrote anything. A transaction that fails validation throws {@link IllegalStateException}.
+     */
+    <R> R transaction(final ContractInterface contract, final Function<Context, R> function) {
+        SimulatedChaincodeStub stub = newTransaction();
+        Context ctx = contract.createContext(stub);
+        contract.beforeTransaction(ctx);
+        R result = function.apply(ctx);
+        contract.afterTransaction(ctx, result);
+
+        if (!stub.getWriteSet().isEmpty()) {
+            ValidationCode code = commit(stub);
+            if (code != ValidationCode.VALID) {
+                throw new IllegalStateException(stub.getTxId() + " was invalidated: " + code);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sets the timestamp of the next transaction and how far each transaction advances the clock.
+     */
+    void setClock(final Instant next, final Duration perTransaction) {
+        this.clock = next;
+        this.tick = perTransaction;
+    }
+
+    /**
+     * Commits a transaction in a block of its own.
+     */
+    ValidationCode commit(final SimulatedChaincodeStub transaction) {
+        return commitBlock(Collections.singletonList(transaction)).get(0);
+    }
+
+    /**
+     * Validates the transactions of a block in order and applies the valid ones. A transaction sees the writes of
+     * the valid transactions before it in the same block, so two transactions of one block that read and write the
+     * same key cannot both be valid.
+     */
+    List<ValidationCode> commitBlock(final List<SimulatedChaincodeStub> transactions) {
+        height++;
+        List<ValidationCode> codes = new ArrayList<>(transactions.size());
+
+        for (int txNum = 0; txNum < transactions.size(); txNum++) {
+            SimulatedChaincodeStub transaction = transactions.get(txNum);
+            ValidationCode code = validate(transaction);
+            if (code == ValidationCode.VALID) {
+                apply(transaction.getWriteSet(), new Version(height, txNum));
+                committed++;
+            } else if (code == ValidationCode.MVCC_READ_CONFLICT) {
+                mvccConflicts++;
+            } else {
+                phantomConflicts++;
+            }
+            transaction.committed(code);
+            codes.add(code);
+        }
+
+        return codes;
+    }
+
+    /**
+     * Writes a key outside of any transaction, e.g. to load a large ledger quickly. The whole load counts as one
+     * block.
+     */
+    void load(final Map<String, byte[]> values) {
+        height++;
+        Version version = new Version(height, 0);
+        for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+            state.put(entry.getKey(), new VersionedValue(entry.getValue(), version));
+        }
+    }
+
+    int size() {
+        return state.size();
+    }
+
+    long getHeight() {
+        return height;
+    }
+
+    int getCommittedCount() {
+        return committed;
+    }
+
+    int getMvccConflictCount() {
+        return mvccConflicts;
+    }
+
+    int getPhantomConflictCount() {
+        return phantomConflicts;
+    }
+
+    /**
+     * Returns the committed value of a key, or null.
+     */
+    byte[] get(final String key) {
+        VersionedValue value = state.get(key);
+        return value == null ? null : value.getValue();
+    }
+
+    VersionedValue getVersioned(final String key) {
+        return state.get(key);
+    }
+
+    /**
+     * Returns a live view of the committed keys from startKey (inclusive) to endKey (exclusive, or unbounded when
+     * null).
+     */
+    NavigableMap<String, VersionedValue> range(final String startKey, final String endKey) {
+        if (endKey == null) {
+            return state.tailMap(startKey, true);
+        }
+        if (startKey.compareTo(endKey) >= 0) {
+            return Collections.emptyNavigableMap();
+        }
+        return state.subMap(startKey, true, endKey, false);
+    }
+
+    private ValidationCode validate(final SimulatedChaincodeStub transaction) {
+        for (Map.Entry<String, Version> read : transaction.getReadSet().entrySet()) {
+            VersionedValue current = state.get(read.getKey());
+            Version currentVersion = current == null ? null : current.getVersion();
+            if (!Objects.equals(read.getValue(), currentVersion)) {
+                return ValidationCode.MVCC_READ_CONFLICT;
+            }
+        }
+
+        for (SimulatedChaincodeStub.RangeRead rangeRead : transaction.getRangeReads()) {
+            if (!rangeUnchanged(rangeRead)) {
+                return ValidationCode.PHANTOM_READ_CONFLICT;
+            }
+        }
+
+        return ValidationCode.VALID;
+    }
+
+    /**
+     * Re-executes a range read over the current state. Only the part of the range the transaction actually consumed
+     * is compared, as the peer does: up to the end of the range if the iterator was exhausted, otherwise up to and
+     * including the last key read.
+     */
+    private boolean rangeUnchanged(final SimulatedChaincodeStub.RangeRead rangeRead) {
+        List<Map.Entry<String, Version>> reads = rangeRead.getReads();
+        NavigableMap<String, VersionedValue> current;
+        if (rangeRead.isExhausted()) {
+            current = range(rangeRead.getStartKey(), rangeRead.getEndKey());
+        } else if (reads.isEmpty()) {
+            return true;
+        } else {
+            String lastKey = reads.get(reads.size() - 1).getKey();
+            current = range(rangeRead.getStartKey(), null).headMap(lastKey, true);
+        }
+
+        Iterator<Map.Entry<String, VersionedValue>> now = current.entrySet().iterator();
+        for (Map.Entry<String, Version> read : reads) {
+            if (!now.hasNext()) {
+                return false;
+            }
+            Map.Entry<String, VersionedValue> entry = now.next();
+            if (!entry.getKey().equals(read.getKey()) || !entry.getValue().getVersion().equals(read.getValue())) {
+                return false;
+            }
+        }
+        return !now.hasNext();
+    }
+
+    private void apply(final Map<String, byte[]> writeSet, final Version version) {
+        for (Map.Entry<String, byte[]> write : writeSet.entrySet()) {
+            if (write.getValue() == null) {
+                state.remove(write.getKey());
+            } else {
+                state.put(write.getKey(), new VersionedValue(write.getValue(), version));
+            }
+        }
+    }
+}
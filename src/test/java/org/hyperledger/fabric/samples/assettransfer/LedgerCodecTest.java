@@ -0,0 +1,87 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public final class LedgerCodecTest {
+
+    private static final DataRequest DATA_REQUEST = new DataRequest("data_r1", "description \"quoted\"",
+            "2024-01-01T00:00:00Z", null, "creator", "o1", "a1,a2", "pending,approved", "ap1", "c1", "campaign",
+            "0.25", false);
+
+    private static final CampaignTransaction COST_TRANSFER = new CampaignTransaction("cost_t1", "data_r1", "c1",
+            0.25, 0.5, 1200L, "email", 300.0, 150.0, 0.1, "0.9", "p1:0.5,p2:0.4");
+
+    private static final UserNotification NOTIFICATION = new UserNotification("notification_n1", "r1", "c1", "3",
+            "a1", "o1", "2024-01-01T00:00:00Z", "caf\u00e9 \u2713", "unread");
+
+    @Test
+    public void roundTripsEveryTypeThroughBothEncodings() {
+        assertRoundTrips(DataRequestCodec.INSTANCE, DATA_REQUEST);
+        assertRoundTrips(CampaignTransactionCodec.INSTANCE, COST_TRANSFER);
+        assertRoundTrips(UserNotificationCodec.INSTANCE, NOTIFICATION);
+    }
+
+    @Test
+    public void writesTheCompactFormBehindItsHeaderByte() {
+        byte[] compact = DataRequestCodec.INSTANCE.encodeCompact(DATA_REQUEST);
+        byte[] json = DataRequestCodec.INSTANCE.encodeJson(DATA_REQUEST);
+
+        assertThat(compact[0]).isEqualTo(LedgerCodec.COMPACT_V1);
+        assertThat(LedgerCodec.isCompact(compact)).isTrue();
+        assertThat(LedgerCodec.isCompact(json)).isFalse();
+        assertThat(compact.length).isLessThan(json.length);
+    }
+
+    @Test
+    public void showsCompactRecordsToClientsAsJson() {
+        byte[] json = DataRequestCodec.INSTANCE.toJson(DataRequestCodec.INSTANCE.encodeCompact(DATA_REQUEST));
+
+        JSONObject record = new JSONObject(new String(json, StandardCharsets.UTF_8));
+        assertThat(record.getString("requestId")).isEqualTo("data_r1");
+        assertThat(record.getString("description")).isEqualTo("description \"quoted\"");
+        assertThat(record.has("updatedOn")).isFalse();
+    }
+
+    @Test
+    public void readsCompactRecordsStoredOnTheLedger() {
+        InMemoryLedger ledger = new InMemoryLedger();
+        DataTransferRequest contract = new DataTransferRequest();
+        ledger.load(Collections.singletonMap("data_r1", DataRequestCodec.INSTANCE.encodeCompact(DATA_REQUEST)));
+
+        DataRequest found = ledger.transaction(contract, ctx -> contract.FindByRequestId(ctx, "r1"));
+        String page = ledger.transaction(contract, ctx -> contract.GetAllDataRequestsPaged(ctx, 10, "", 0));
+
+        assertThat(found).isEqualTo(DATA_REQUEST);
+        assertThat(new JSONObject(page).getJSONArray("records").getJSONObject(0).getString("campaignId"))
+                .isEqualTo("c1");
+    }
+
+    @Test
+    public void rejectsAnUnknownCompactVersion() {
+        byte[] value = DataRequestCodec.INSTANCE.encodeCompact(DATA_REQUEST);
+        value[0] = 0x02;
+
+        assertThatThrownBy(() -> DataRequestCodec.INSTANCE.decodeCompact(value))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Unsupported ledger value format");
+    }
+
+    private static <T> void assertRoundTrips(final LedgerCodec<T> codec, final T value) {
+        assertThat(codec.decode(codec.encodeJson(value))).isEqualTo(value);
+        assertThat(codec.decode(codec.encodeCompact(value))).isEqualTo(value);
+        assertThat(codec.decodeJsonArray("[" + new String(codec.encodeJson(value), StandardCharsets.UTF_8) + ",null]"))
+                .containsExactly(value, null);
+    }
+}
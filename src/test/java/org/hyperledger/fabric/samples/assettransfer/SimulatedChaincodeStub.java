@@ -0,0 +1,521 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * One transaction simulated against an {@link InMemoryLedger}. It records a read/write set the way the peer's
+ * transaction simulator does: the version of every key read, every range scanned together with the keys it returned,
+ * and the latest write of every key. Writes are not visible to the transaction's own reads and reach world state
+ * only when the ledger commits the transaction.
+ *
+ * <p>Query semantics follow the peer: empty range keys are open ends, range scans reject composite keys, composite
+ * key queries match a prefix of attributes, and a paginated query returns the key after its last record as the
+ * bookmark. Like the peer, a transaction may not combine paginated queries with writes.
+ */
+final class SimulatedChaincodeStub implements ChaincodeStub {
+
+    /**
+     * What the peer uses for an empty start key, which keeps composite keys out of simple range scans.
+     */
+    private static final String MIN_SIMPLE_KEY = "\u0001";
+
+    private static final String MAX_UNICODE_RUNE = "\udbff\udfff";
+
+    /**
+     * Self-signed certificate of the submitting client; the contract context reads the client identity from it.
+     */
+    private static final String CREATOR_CERTIFICATE = String.join("\n",
+            "-----BEGIN CERTIFICATE-----",
+            "MIIBgjCCASigAwIBAgIJANO+YCeYdXlsMAoGCCqGSM49BAMCMDQxDTALBgNVBAoT",
+            "BE9yZzExDzANBgNVBAsTBmNsaWVudDESMBAGA1UEAxMJc2ltdWxhdG9yMCAXDTI0",
+            "MDEwMTA1Mjc0M1oYDzIxMjMxMjA4MDUyNzQzWjA0MQ0wCwYDVQQKEwRPcmcxMQ8w",
+            "DQYDVQQLEwZjbGllbnQxEjAQBgNVBAMTCXNpbXVsYXRvcjBZMBMGByqGSM49AgEG",
+            "CCqGSM49AwEHA0IABHVpGKa1SfdkhUi10c5gepLcE5uFtlxSwQ+rWQGUVrTcEdSF",
+            "U8HCrDVfo+Ll3wlhmpOqjB9Q87zBoPTie1Hx9YijITAfMB0GA1UdDgQWBBSV958Z",
+            "UrzD967ID4seBJ63+fD0ODAKBggqhkjOPQQDAgNIADBFAiBaHmmRKqYzsCYh8pvN",
+            "GIPfZ/hDL46NWZbREU87gyRWVQIhAObkrKv3KN22lS63au6lOfFnlDk7dVc3mRZj",
+            "dICRz3Rz",
+            "-----END CERTIFICATE-----",
+            "");
+
+    private final InMemoryLedger ledger;
+    private final String txId;
+    private final Instant timestamp;
+    private final Map<String, InMemoryLedger.Version> readSet = new LinkedHashMap<>();
+    private final Map<String, byte[]> writeSet = new LinkedHashMap<>();
+    private final List<RangeRead> rangeReads = new ArrayList<>();
+    private String mspId = "Org1MSP";
+    private boolean paginated;
+    private String eventName;
+    private byte[] eventPayload;
+    private InMemoryLedger.ValidationCode validationCode;
+
+    SimulatedChaincodeStub(final InMemoryLedger ledger, final String txId, final Instant timestamp) {
+        this.ledger = ledger;
+        this.txId = txId;
+        this.timestamp = timestamp;
+    }
+
+    void setMspId(final String mspId) {
+        this.mspId = mspId;
+    }
+
+    Map<String, InMemoryLedger.Version> getReadSet() {
+        return Collections.unmodifiableMap(readSet);
+    }
+
+    /**
+     * Returns the writes of the transaction; a null value is a delete.
+     */
+    Map<String, byte[]> getWriteSet() {
+        return Collections.unmodifiableMap(writeSet);
+    }
+
+    List<RangeRead> getRangeReads() {
+        return Collections.unmodifiableList(rangeReads);
+    }
+
+    /**
+     * Returns how the transaction was validated, or null while it has not been committed.
+     */
+    InMemoryLedger.ValidationCode getValidationCode() {
+        return validationCode;
+    }
+
+    void committed(final InMemoryLedger.ValidationCode code) {
+        this.validationCode = code;
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getFunction() {
+        return null;
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return "simulated";
+    }
+
+    @Override
+    public Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        throw new UnsupportedOperationException("invokeChaincode");
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        InMemoryLedger.VersionedValue value = ledger.getVersioned(key);
+        if (!readSet.containsKey(key)) {
+            readSet.put(key, value == null ? null : value.getVersion());
+        }
+        return value == null ? new byte[0] : value.getValue();
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return null;
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        checkWrite(key);
+        writeSet.put(key, value == null || value.length == 0 ? null : value.clone());
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+    }
+
+    @Override
+    public void delState(final String key) {
+        checkWrite(key);
+        writeSet.put(key, null);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        String start = startKey == null || startKey.isEmpty() ? MIN_SIMPLE_KEY : startKey;
+        String end = endKey == null || endKey.isEmpty() ? null : endKey;
+        CompositeKey.validateSimpleKeys(start, end == null ? MIN_SIMPLE_KEY : end);
+        return scan(start, end, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey,
+            final String endKey, final int pageSize, final String bookmark) {
+        checkPaginatedQuery();
+        String start = bookmark == null || bookmark.isEmpty() ? startKey : bookmark;
+        start = start == null || start.isEmpty() ? MIN_SIMPLE_KEY : start;
+        String end = endKey == null || endKey.isEmpty() ? null : endKey;
+        CompositeKey.validateSimpleKeys(start, end == null ? MIN_SIMPLE_KEY : end);
+        return scan(start, end, pageSize);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        return getStateByPartialCompositeKey(CompositeKey.parseCompositeKey(compositeKey));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+            final String... attributes) {
+        return getStateByPartialCompositeKey(new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        String prefix = compositeKey.toString();
+        return scan(prefix, prefix + MAX_UNICODE_RUNE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        checkPaginatedQuery();
+        String prefix = compositeKey.toString();
+        String start = bookmark == null || bookmark.isEmpty() ? prefix : bookmark;
+        return scan(start, prefix + MAX_UNICODE_RUNE, pageSize);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        throw new UnsupportedOperationException("Rich queries need CouchDB");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query,
+            final int pageSize, final String bookmark) {
+        throw new UnsupportedOperationException("Rich queries need CouchDB");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        throw new UnsupportedOperationException("getHistoryForKey");
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public void purgePrivateData(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection, final String startKey,
+            final String endKey) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String compositeKey) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final CompositeKey compositeKey) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String objectType, final String... attributes) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        throw new UnsupportedOperationException("Private data");
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Event name cannot be null or empty string.");
+        }
+        this.eventName = name;
+        this.eventPayload = payload;
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        if (eventName == null) {
+            return null;
+        }
+        return ChaincodeEvent.newBuilder()
+                .setEventName(eventName)
+                .setTxId(txId)
+                .setPayload(ByteString.copyFrom(eventPayload == null ? new byte[0] : eventPayload))
+                .build();
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return null;
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return SerializedIdentity.newBuilder()
+                .setMspid(mspId)
+                .setIdBytes(ByteString.copyFrom(CREATOR_CERTIFICATE, StandardCharsets.UTF_8))
+                .build()
+                .toByteArray();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return new byte[0];
+    }
+
+    @Override
+    public String getMspId() {
+        return mspId;
+    }
+
+    private Results scan(final String startKey, final String endKey, final int pageSize) {
+        RangeRead rangeRead = new RangeRead(startKey, endKey);
+        rangeReads.add(rangeRead);
+        return new Results(ledger.range(startKey, endKey), rangeRead, pageSize);
+    }
+
+    private void checkWrite(final String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("key must not be null or empty");
+        }
+        if (paginated) {
+            throw new IllegalStateException(String.format(
+                    "txid [%s]: transaction has already performed a paginated query. Writes are not allowed", txId));
+        }
+    }
+
+    private void checkPaginatedQuery() {
+        if (!writeSet.isEmpty()) {
+            throw new IllegalStateException(
+                    String.format("txid [%s]: paginated queries are not allowed after a write", txId));
+        }
+        paginated = true;
+    }
+
+    /**
+     * A range scanned by the transaction: its bounds, the keys and versions it returned in order, and whether the
+     * caller read it to the end.
+     */
+    static final class RangeRead {
+
+        private final String startKey;
+        private final String endKey;
+        private final List<Map.Entry<String, InMemoryLedger.Version>> reads = new ArrayList<>();
+        private boolean exhausted;
+
+        RangeRead(final String startKey, final String endKey) {
+            this.startKey = startKey;
+            this.endKey = endKey;
+        }
+
+        String getStartKey() {
+            return startKey;
+        }
+
+        /**
+         * Returns the exclusive end of the range, or null when it is unbounded.
+         */
+        String getEndKey() {
+            return endKey;
+        }
+
+        List<Map.Entry<String, InMemoryLedger.Version>> getReads() {
+            return reads;
+        }
+
+        boolean isExhausted() {
+            return exhausted;
+        }
+    }
+
+    /**
+     * Walks a live view of the committed state, so a scan costs what it returns rather than the size of the range.
+     * The view must not outlive a commit of the ledger. The shim's plain and paginated iterators are unrelated
+     * types, so the same results serve as either.
+     */
+    private static final class Results
+            implements QueryResultsIterator<KeyValue>, QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final Iterator<Map.Entry<String, InMemoryLedger.VersionedValue>> entries;
+        private final RangeRead rangeRead;
+        private final int pageSize;
+        private String bookmark = "";
+
+        Results(final NavigableMap<String, InMemoryLedger.VersionedValue> view, final RangeRead rangeRead,
+                final int pageSize) {
+            this.entries = view.entrySet().iterator();
+            this.rangeRead = rangeRead;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return new Iterator<KeyValue>() {
+                @Override
+                public boolean hasNext() {
+                    if (rangeRead.reads.size() >= pageSize) {
+                        return false;
+                    }
+                    if (!entries.hasNext()) {
+                        rangeRead.exhausted = true;
+                        return false;
+                    }
+                    return true;
+                }
+
+                @Override
+                public KeyValue next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Map.Entry<String, InMemoryLedger.VersionedValue> entry = entries.next();
+                    rangeRead.reads.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                            entry.getValue().getVersion()));
+                    return new Entry(entry.getKey(), entry.getValue().getValue());
+                }
+            };
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            if (rangeRead.reads.size() >= pageSize && bookmark.isEmpty() && entries.hasNext()) {
+                bookmark = entries.next().getKey();
+            }
+            return QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(rangeRead.reads.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class Entry implements KeyValue {
+
+        private final String key;
+        private final byte[] value;
+
+        Entry(final String key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public final class UserNotificationHandlerTest {
+
+    private final InMemoryLedger ledger = new InMemoryLedger();
+    private final UserNotificationHandler contract = new UserNotificationHandler();
+
+    @Test
+    public void countsNotificationsPerOwnerAndStatus() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "n1", "o1", "c1", "unread");
+            create(ctx, "n2", "o1", "c1", "unread");
+            create(ctx, "n3", "o2", "c2", "unread");
+            return null;
+        });
+        ledger.transaction(contract, ctx -> contract.UpdateNotification(ctx, "n1", "r1", "c1", "1", "a1", "o1",
+                "2024-01-01T00:00:00Z", "message", "read"));
+
+        assertThat(json(ctx -> contract.GetNotificationCountsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":2,\"unread\":1}");
+        assertThat(json(ctx -> contract.GetNotificationCountsByCampaign(ctx, "c2")))
+                .isEqualTo("{\"campaignId\":\"c2\",\"total\":1,\"unread\":1}");
+
+        ledger.transaction(contract, ctx -> {
+            contract.DeleteNotification(ctx, "n2");
+            return null;
+        });
+
+        assertThat(json(ctx -> contract.GetNotificationCountsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":1,\"unread\":0}");
+    }
+
+    @Test
+    public void updatesCountersFromConcurrentTransactionsWithoutConflicts() {
+        List<SimulatedChaincodeStub> block = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String notificationId = "n" + i;
+            block.add(ledger.simulate(contract, ctx -> create(ctx, notificationId, "o1", "c1", "unread")));
+        }
+
+        assertThat(ledger.commitBlock(block)).containsOnly(InMemoryLedger.ValidationCode.VALID);
+        assertThat(json(ctx -> contract.GetNotificationCountsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":5,\"unread\":5}");
+    }
+
+    @Test
+    public void keepsCountsWhenDeltasAreCompacted() {
+        for (int i = 0; i < 3; i++) {
+            String notificationId = "n" + i;
+            String status = i == 0 ? "read" : "unread";
+            ledger.transaction(contract, ctx -> create(ctx, notificationId, "o1", "c1", status));
+        }
+
+        JSONObject compacted = new JSONObject(json(ctx -> contract.CompactNotificationCounters(ctx, 100)));
+        assertThat(compacted.getInt("folded")).isPositive();
+        assertThat(json(ctx -> contract.GetNotificationCountsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":3,\"unread\":2}");
+
+        ledger.transaction(contract, ctx -> contract.UpdateNotification(ctx, "n1", "r1", "c1", "1", "a1", "o1",
+                "2024-01-01T00:00:00Z", "message", "read"));
+        assertThat(json(ctx -> contract.GetNotificationCountsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":3,\"unread\":1}");
+    }
+
+    @Test
+    public void rebuildsCountsFromTheIndexes() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "n1", "o1", "c1", "unread");
+            create(ctx, "n2", "o1", "c1", "read");
+            return null;
+        });
+
+        assertThat(json(ctx -> contract.RebuildNotificationCountsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":2,\"unread\":1}");
+        assertThat(json(ctx -> contract.RebuildNotificationCountsByCampaign(ctx, "c1")))
+                .isEqualTo("{\"campaignId\":\"c1\",\"total\":2,\"unread\":1}");
+        assertThat(json(ctx -> contract.GetNotificationCountsByCampaign(ctx, "c1")))
+                .isEqualTo("{\"campaignId\":\"c1\",\"total\":2,\"unread\":1}");
+    }
+
+    @Test
+    public void findsNotificationsThroughEachIndex() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "n1", "o1", "c1", "unread");
+            create(ctx, "n2", "o2", "c1", "unread");
+            return null;
+        });
+
+        assertThat(ids(json(ctx -> contract.FindNotificationByRequestId(ctx, "r1"))))
+                .containsExactly("notification_n1", "notification_n2");
+        assertThat(ids(json(ctx -> contract.FindNotificationByCampaignId(ctx, "c1"))))
+                .containsExactly("notification_n1", "notification_n2");
+        assertThat(ids(json(ctx -> contract.FindNotificationByOrgId(ctx, "o2")))).containsExactly("notification_n2");
+        assertThat(ledger.transaction(contract, ctx -> contract.FindNotificationById(ctx, "n1")).getOwner())
+                .isEqualTo("o1");
+
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindNotificationByCampaignId(ctx, "c2")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("No non-deleted assets found");
+    }
+
+    @Test
+    public void deletesANotificationWithItsIndexEntries() {
+        ledger.transaction(contract, ctx -> create(ctx, "n1", "o1", "c1", "unread"));
+        ledger.transaction(contract, ctx -> {
+            contract.DeleteNotification(ctx, "n1");
+            return null;
+        });
+
+        assertThat(ledger.get("notification_n1")).isNull();
+        assertThat(new JSONArray(json(ctx -> contract.FindNotificationsByOwner(ctx, "o1"))).length()).isZero();
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.ReadNotification(ctx, "n1")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("does not exist");
+    }
+
+    @Test
+    public void movesIndexEntriesWhenTheOwnerChanges() {
+        ledger.transaction(contract, ctx -> create(ctx, "n1", "o1", "c1", "unread"));
+        ledger.transaction(contract, ctx -> contract.UpdateNotification(ctx, "n1", "r1", "c1", "1", "a1", "o2",
+                "2024-01-01T00:00:00Z", "message", "unread"));
+
+        assertThat(new JSONArray(json(ctx -> contract.FindNotificationsByOwner(ctx, "o1"))).length()).isZero();
+        assertThat(new JSONArray(json(ctx -> contract.FindNotificationsByOwner(ctx, "o2")))
+                .getJSONObject(0).getString("id")).isEqualTo("notification_n1");
+        assertThat(json(ctx -> contract.GetNotificationCountsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":0,\"unread\":0}");
+    }
+
+    @Test
+    public void patchesTheStatusAndMovesTheCounters() {
+        ledger.transaction(contract, ctx -> create(ctx, "n1", "o1", "c1", "unread"));
+        UserNotification patched = ledger.transaction(contract,
+                ctx -> contract.PatchNotification(ctx, "n1", "{\"status\":\"read\",\"owner\":\"o2\"}"));
+
+        assertThat(patched.getStatus()).isEqualTo("read");
+        assertThat(patched.getMessage()).isEqualTo("message");
+        assertThat(json(ctx -> contract.GetNotificationCountsByOwner(ctx, "o2")))
+                .isEqualTo("{\"owner\":\"o2\",\"total\":1,\"unread\":0}");
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.PatchNotification(ctx, "n1", "{\"id\":\"notification_n2\"}")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("cannot be patched");
+    }
+
+    @Test
+    public void pagesThroughTheNotificationsOfAnOwner() {
+        ledger.transaction(contract, ctx -> {
+            for (int i = 0; i < 3; i++) {
+                create(ctx, "n" + i, "o1", "c1", "unread");
+            }
+            return null;
+        });
+
+        JSONObject first = new JSONObject(json(ctx -> contract.FindNotificationsByOwnerPaged(ctx, "o1", 2,
+                "", 0)));
+        assertThat(first.getInt("fetchedCount")).isEqualTo(2);
+
+        JSONObject second = new JSONObject(json(ctx -> contract.FindNotificationsByOwnerPaged(ctx, "o1", 2,
+                first.getString("bookmark"), 0)));
+        assertThat(second.getJSONArray("records").getJSONObject(0).getString("id")).isEqualTo("notification_n2");
+        assertThat(second.getString("bookmark")).isEmpty();
+    }
+
+    @Test
+    public void rejectsBackfillBookmarksOutsideTheNotifications() {
+        assertThatThrownBy(() -> ledger.transaction(contract,
+                ctx -> contract.BackfillNotificationIndexes(ctx, 10, "data_r1")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not a notification key");
+    }
+
+    @Test
+    public void findsNotificationsCreatedInsideAHalfOpenWindow() {
+        ledger.transaction(contract, ctx -> {
+            contract.CreateUserNotification(ctx, "n1", "r1", "c1", "1", "a1", "o1", "2024-01-01T00:00:00Z",
+                    "message", "unread");
+            contract.CreateUserNotification(ctx, "n2", "r1", "c1", "1", "a1", "o1", "1704153600000", "message",
+                    "unread");
+            contract.CreateUserNotification(ctx, "n3", "r1", "c1", "1", "a1", "o1", "2024-01-03T00:00:00Z",
+                    "message", "unread");
+            return null;
+        });
+
+        assertThat(ids(new JSONObject(json(ctx -> contract.FindNotificationsCreatedBetween(ctx,
+                "2024-01-01T00:00:00.001Z", "2024-01-03T00:00:00Z", 10, "", 0))).getJSONArray("records").toString()))
+                .containsExactly("notification_n2");
+        assertThat(ids(new JSONObject(json(ctx -> contract.FindNotificationsCreatedBetween(ctx,
+                "2024-01-01T00:00:00Z", "2024-01-03T00:00:00.001Z", 10, "", 0))).getJSONArray("records").toString()))
+                .containsExactly("notification_n1", "notification_n2", "notification_n3");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.FindNotificationsCreatedBetween(ctx,
+                "2024-01-03T00:00:00Z", "2024-01-01T00:00:00Z", 10, "", 0)))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("Invalid time window");
+    }
+
+    @Test
+    public void readsSeveralNotificationsAndReportsTheMissingIds() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "n1", "o1", "c1", "unread");
+            create(ctx, "n2", "o1", "c1", "unread");
+            return null;
+        });
+
+        JSONObject result = new JSONObject(json(ctx -> contract.ReadNotifications(ctx,
+                "[\"notification_n2\",\"n3\",\"n2\",\"n1\",\"notification_n3\"]")));
+
+        assertThat(ids(result.getJSONArray("records").toString())).containsExactly("notification_n2",
+                "notification_n1");
+        assertThat(result.getJSONArray("missing").toList()).containsExactly("n3");
+        assertThatThrownBy(() -> ledger.transaction(contract, ctx -> contract.ReadNotifications(ctx, "n1")))
+                .isInstanceOf(ChaincodeException.class)
+                .hasMessageContaining("not a JSON array of strings");
+    }
+
+    @Test
+    public void countsNotificationsWithoutReturningThem() {
+        ledger.transaction(contract, ctx -> {
+            create(ctx, "n1", "o1", "c1", "unread");
+            create(ctx, "n2", "o1", "c2", "read");
+            create(ctx, "n3", "o2", "c2", "unread");
+            return null;
+        });
+
+        assertThat(json(ctx -> contract.CountNotificationsByOwner(ctx, "o1")))
+                .isEqualTo("{\"owner\":\"o1\",\"total\":2,\"byStatus\":{\"read\":1,\"unread\":1}}");
+        assertThat(json(ctx -> contract.CountNotificationsByCampaign(ctx, "c2")))
+                .isEqualTo("{\"campaignId\":\"c2\",\"total\":2,\"byStatus\":{\"read\":1,\"unread\":1}}");
+        assertThat(json(ctx -> contract.CountNotificationsByRequestId(ctx, "r2")))
+                .isEqualTo("{\"requestId\":\"r2\",\"total\":0,\"byStatus\":{}}");
+        assertThat(json(ctx -> contract.CountNotificationsPerOwner(ctx)))
+                .isEqualTo("{\"total\":3,\"byOwner\":{\"o1\":2,\"o2\":1}}");
+        assertThat(json(ctx -> contract.CountNotificationsPerCampaign(ctx)))
+                .isEqualTo("{\"total\":3,\"byCampaign\":{\"c1\":1,\"c2\":2}}");
+    }
+
+    private UserNotification create(final Context ctx, final String notificationId, final String owner,
+                                    final String campaignId, final String status) {
+        return contract.CreateUserNotification(ctx, notificationId, "r1", campaignId, "1", "a1", owner,
+                "2024-01-01T00:00:00Z", "message", status);
+    }
+
+    private static List<String> ids(final String notifications) {
+        JSONArray records = new JSONArray(notifications);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < records.length(); i++) {
+            ids.add(records.getJSONObject(i).getString("id"));
+        }
+        return ids;
+    }
+
+    /**
+     * Runs a transaction that returns its result as JSON.
+     */
+    private String json(final Function<Context, String> function) {
+        return ledger.transaction(contract, function);
+    }
+}